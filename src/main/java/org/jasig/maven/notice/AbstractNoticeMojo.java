@@ -23,26 +23,50 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Path;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.LineIterator;
+import org.apache.commons.lang.StringUtils;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.artifact.factory.ArtifactFactory;
 import org.apache.maven.artifact.metadata.ArtifactMetadataSource;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.resolver.ArtifactCollector;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.model.License;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.DefaultProjectBuildingRequest;
@@ -58,8 +82,14 @@ import org.eclipse.aether.RepositorySystemSession;
 import org.jasig.maven.notice.lookup.ArtifactLicense;
 import org.jasig.maven.notice.lookup.LicenseLookup;
 import org.jasig.maven.notice.lookup.MappedVersion;
+import org.jasig.maven.notice.util.ArtifactResourceResolver;
+import org.jasig.maven.notice.util.Checksums;
+import org.jasig.maven.notice.util.ConcurrentLoadingCache;
+import org.jasig.maven.notice.util.DaemonThreadFactory;
 import org.jasig.maven.notice.util.ResourceFinder;
 import org.jasig.maven.notice.util.ResourceFinderImpl;
+import org.jasig.maven.notice.util.SessionDataUtils;
+import org.jasig.maven.notice.util.UrlResourceCache;
 
 import org.apache.maven.plugins.annotations.Component;
 
@@ -69,6 +99,28 @@ import org.apache.maven.plugins.annotations.Component;
  * @author Eric Dalquist
  */
 public abstract class AbstractNoticeMojo extends AbstractMojo {
+    /**
+     * Compiled NOTICE templates shared by every module of the build, and by later builds in a
+     * build daemon, bounded by their estimated weight and only held softly
+     */
+    private static final ConcurrentLoadingCache<String, NoticeTemplate> NOTICE_TEMPLATE_CACHE =
+            new ConcurrentLoadingCache<String, NoticeTemplate>(
+                    16,
+                    8L * 1024 * 1024,
+                    new ConcurrentLoadingCache.Weigher<NoticeTemplate>() {
+                        public long weigh(NoticeTemplate template) {
+                            return template.estimateWeight();
+                        }
+                    },
+                    true);
+
+    /** Session data key of the resource URLs found during the build */
+    private static final String RESOLVED_RESOURCES_KEY =
+            SessionDataUtils.getKey(ResourceFinderImpl.class);
+
+    /** Session data key of the URL resources fetched during the build */
+    private static final String FETCHED_RESOURCES_KEY =
+            SessionDataUtils.getKey(UrlResourceCache.class);
 
     /* DI configuration of Maven components needed for the plugin */
 
@@ -114,14 +166,20 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
     @Component
     protected MavenProjectBuilder mavenProjectBuilder;
 
-    @Parameter ( defaultValue = "${repositorySystem}" )
+    /**
+     * Resolves artifacts referenced by license mappings and templates.
+     */
+    @Component
     RepositorySystem repoSystem;
 
     @Parameter( defaultValue = "${session}", readonly = true, required = true )
-    private MavenSession session;
+    MavenSession session;
 
     @Parameter( defaultValue = "${repositorySystemSession}" )
     private RepositorySystemSession repoSession;
+
+    @Parameter( defaultValue = "${mojoExecution}", readonly = true )
+    private MojoExecution mojoExecution;
     /* Mojo Configuration Properties */
 
     /**
@@ -139,14 +197,18 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
 
     /**
      * License Mapping XML files / URLs. Lookups are done in-order with files being checked top to
-     * bottom for matches.
+     * bottom for matches. Files can also be read from an artifact with
+     * groupId:artifactId:version[:classifier]!/path/in/jar
      *
      */
     @Parameter
     protected String[] licenseMapping = new String[0];
 
     /**
-     * Template for NOTICE file generation.
+     * Template for NOTICE file generation. Besides the noticeTemplatePlaceholder the template may
+     * contain #GENERATED_NOTICES_BY_LICENSE#, #DEPENDENCY_COUNT#, #LICENSE_COUNT# and the project
+     * metadata placeholders #PROJECT_NAME#, #PROJECT_GROUP_ID#, #PROJECT_ARTIFACT_ID#,
+     * #PROJECT_VERSION#, #PROJECT_URL#, #PROJECT_INCEPTION_YEAR# and #PROJECT_ORGANIZATION#.
      */
     @Parameter( defaultValue = "NOTICE.template")
     protected String noticeTemplate = "NOTICE.template";
@@ -159,7 +221,8 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
 
     /**
      * List of scopes, like "compile", "test", etc. If specified, only dependencies with these
-     * scopes will be listed in the NOTICE file.
+     * scopes will be listed in the NOTICE file. Dependencies that aren't listed are not resolved
+     * and are never reported as missing a license.
      */
     @Parameter
     protected Set<String> includeScopes = new TreeSet<String>();
@@ -203,6 +266,8 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
 
     /**
      * The {@link MessageFormat} syntax string used to generate each license line in the NOTICE file.
+     * Patterns only using the arguments below without a format type are compiled once and
+     * formatted without {@link MessageFormat}.
      * <br>
      * {0} - artifact name<br>
      * {1} - license name<br>
@@ -210,7 +275,7 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
     @Parameter( defaultValue = "  {0} under {1}")
     protected String noticeMessage = "  {0} under {1}";
 
-    private MessageFormat parsedNoticeMessage;
+    private NoticeLineFormat noticeLineFormat;
 
     /**
      * ArtifactIds of child modules to exclude.
@@ -228,10 +293,138 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
      *   <li>However, if B were to be explicitly declared as a non-optional dependency in your pom,
      *       then it would be included.
      * </ul>
+     *
+     * Excluded dependencies are not resolved and their transitive dependencies are not traversed.
      */
     @Parameter
     protected boolean excludeOptional;
 
+    /**
+     * Number of threads used to resolve artifact licenses. With a single thread licenses are
+     * resolved while the dependency tree is traversed. With more threads the traversal only
+     * collects the unique artifacts and their licenses are resolved concurrently, the generated
+     * NOTICE file is identical either way.
+     */
+    @Parameter( property = "notice.resolutionThreads", defaultValue = "1")
+    protected int resolutionThreads = 1;
+
+    /**
+     * Cache the names and licenses read from dependency POMs on disk. Entries are keyed by the
+     * artifact coordinates and the checksum of the POM in the local repository, and are replaced
+     * atomically so concurrent builds can share the cache.
+     */
+    @Parameter( property = "notice.licenseCache", defaultValue = "true")
+    protected boolean licenseCache = true;
+
+    /**
+     * Directory for the POM license cache. Defaults to .cache/notice-maven-plugin/pom-licenses in
+     * the local repository.
+     */
+    @Parameter( property = "notice.licenseCacheDirectory")
+    protected File licenseCacheDirectory;
+
+    /**
+     * Cache HTTP(S) license mappings and templates on disk. Each URL is fetched at most once per
+     * build, cached copies are revalidated with the ETag and Last-Modified headers once they are
+     * older than {@link #urlCacheMaxAge} and are used as is in offline builds.
+     */
+    @Parameter( property = "notice.urlCache", defaultValue = "true")
+    protected boolean urlCache = true;
+
+    /**
+     * Directory for the URL cache. Defaults to .cache/notice-maven-plugin/urls in the local
+     * repository.
+     */
+    @Parameter( property = "notice.urlCacheDirectory")
+    protected File urlCacheDirectory;
+
+    /**
+     * Seconds a cached URL is used without revalidating it, by default it is revalidated in every
+     * build.
+     */
+    @Parameter( property = "notice.urlCacheMaxAge", defaultValue = "0")
+    protected long urlCacheMaxAge = 0;
+
+    /**
+     * Read dependency names and licenses by stream parsing their POMs from the local repository.
+     * Parent POMs are only read if licenses are missing. The full Maven project builder is still
+     * used when a POM isn't available locally or needs interpolation.
+     */
+    @Parameter( property = "notice.readPomsDirectly", defaultValue = "true")
+    protected boolean readPomsDirectly = true;
+
+    /**
+     * Binary license mapping index written by the compile-mappings goal. When the index was
+     * compiled from the configured licenseMapping files and their content is unchanged it is memory
+     * mapped and used instead of parsing the XML, otherwise the XML files are loaded.
+     */
+    @Parameter( property = "notice.licenseMappingIndex")
+    protected File licenseMappingIndex;
+
+    /**
+     * Number of parsed licenseMapping files kept in memory and shared by every module of a build.
+     * Cached files are reloaded when their last modified time or size changes. The cache is shared
+     * by every execution in the JVM, including parallel modules and the builds of a build daemon,
+     * and the largest size any of them configured applies.
+     */
+    @Parameter( property = "notice.licenseMappingCacheSize", defaultValue = "20")
+    protected int licenseMappingCacheSize = LicenseLookupHelper.DEFAULT_LICENSE_LOOKUP_CACHE_SIZE;
+
+    /**
+     * Estimated memory, in megabytes, the parsed and the compiled licenseMapping caches may each
+     * use. The caches outlive the build in a build daemon, their entries are also held softly so
+     * the garbage collector can reclaim them. Like licenseMappingCacheSize the largest value
+     * configured by any execution in the JVM applies.
+     */
+    @Parameter( property = "notice.licenseMappingCacheMemory", defaultValue = "64")
+    protected int licenseMappingCacheMemory = 64;
+
+    /**
+     * Process the whole reactor from the execution root. Each module's dependency tree is built
+     * and each artifact's license resolved once, then the NOTICE file of every module is written
+     * from the shared results. Executions of other modules do nothing.
+     *
+     * <p>The configuration of the execution root is applied to every module of the reactor:
+     * its template, scopes, noticeMessage, excludedModules and licenseMapping are used for every
+     * module's NOTICE, including modules that don't use this plugin, skip it or configure it
+     * differently. Only aggregate if every module should get a NOTICE generated the same way. An
+     * absolute outputDir is rebased from the execution root onto each module.
+     */
+    @Parameter( property = "notice.aggregate", defaultValue = "false")
+    protected boolean aggregate = false;
+
+    /**
+     * Number of threads used to build the dependency graphs of the project and its child modules.
+     * Graphs are built up front when more than one thread is used and are always visited in
+     * module order, so the generated NOTICE file is identical either way.
+     */
+    @Parameter( property = "notice.graphBuildThreads", defaultValue = "1")
+    protected int graphBuildThreads = 1;
+
+    /**
+     * Skip the goal when its inputs are unchanged since its last successful execution and the
+     * NOTICE files are as that execution left them. The inputs are the dependencies of the parsed
+     * modules, the licenseMapping files, the template and the configuration, their fingerprint is
+     * stored in the build directory. Executions depending on SNAPSHOTs or version ranges from
+     * outside the reactor always run, as do executions parsing a module whose dependencies Maven
+     * hasn't resolved yet. Child modules are usually resolved after their parent runs, so an
+     * execution including child dependencies or aggregating modules that have dependencies is
+     * only skipped if those modules were resolved before it.
+     */
+    @Parameter( property = "notice.incremental", defaultValue = "true")
+    protected boolean incremental = true;
+
+    /**
+     * Keep a lock file of the resolved licenses next to each NOTICE file, named after it with a
+     * .lock suffix. The generate goal writes it and the check goal reuses its licenses for released
+     * artifacts, only resolving the licenses of added or changed artifacts. The lock is ignored if
+     * the licenseMapping files changed since it was written.
+     */
+    @Parameter( property = "notice.lockFile", defaultValue = "false")
+    protected boolean lockFile = false;
+
+    private ModuleExclusions moduleExclusions;
+
     /* (non-Javadoc)
      * @see org.apache.maven.plugin.Mojo#execute()
      */
@@ -258,50 +451,597 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
             return;
         }
 
+        // In aggregate mode the execution root generates every NOTICE
+        if (this.aggregate && !this.project.isExecutionRoot()) {
+            logger.info("NOTICE for " + project.getName() + " is handled by the execution root");
+            return;
+        }
+
         final ResourceFinder finder = this.getResourceFinder();
+        try {
+            this.generateNotices(finder);
+        } finally {
+            IOUtils.closeQuietly(finder);
+        }
+    }
+
+    private void generateNotices(ResourceFinder finder)
+            throws MojoExecutionException, MojoFailureException {
+        final Log logger = this.getLog();
+        final List<MavenProject> noticeProjects = this.getNoticeProjects();
 
+        // Skip everything if nothing changed since the last successful execution
+        final List<File> noticeFiles = new ArrayList<File>(noticeProjects.size());
+        final List<File> trackedFiles = new ArrayList<File>();
+        for (final MavenProject noticeProject : noticeProjects) {
+            noticeFiles.add(this.getNoticeOutputFile(noticeProject));
+        }
+        trackedFiles.addAll(noticeFiles);
+        if (this.lockFile) {
+            for (final MavenProject noticeProject : noticeProjects) {
+                trackedFiles.add(this.getNoticeLockFile(noticeProject));
+            }
+        }
+        final File stateFile = this.getIncrementalStateFile();
+        final BuildFingerprint inputFingerprint;
+        if (this.incremental) {
+            inputFingerprint = this.computeInputFingerprint(finder, noticeProjects, noticeFiles);
+            if (this.isUpToDate(inputFingerprint, stateFile, trackedFiles)) {
+                logger.info("NOTICE inputs are unchanged, skipping " + stateFile.getName());
+                return;
+            }
+        } else {
+            inputFingerprint = null;
+        }
+
+        LicenseLookupHelper.setLicenseLookupCacheSize(licenseMappingCacheSize);
+        LicenseLookupHelper.setLicenseLookupCacheWeight(licenseMappingCacheMemory * 1024L * 1024L);
         final LicenseLookupHelper licenseLookupHelper =
-                new LicenseLookupHelper(logger, finder, licenseMapping);
+                new LicenseLookupHelper(logger, finder, licenseMapping, licenseMappingIndex);
 
         final List<ArtifactRepository> remoteArtifactRepositories = project.getRemoteArtifactRepositories();
+        final PomLicenseRegistry pomLicenseRegistry =
+                PomLicenseRegistry.getInstance(this.repoSession);
+        final PomLicenseCache pomLicenseCache = this.createPomLicenseCache();
+        final PomLicenseReader pomLicenseReader =
+                this.readPomsDirectly ? new PomLicenseReader(logger, this.localRepository) : null;
+
+        // Dependency trees and resolved licenses are shared by every NOTICE generated
+        final Map<MavenProject, DependencyNode> dependencyTrees =
+                new HashMap<MavenProject, DependencyNode>();
+        final ConcurrentMap<Artifact, Future<LicenseResolvingNodeVisitor.ArtifactResolution>>
+                resolutions = LicenseResolvingNodeVisitor.createSharedResolutions();
+        final DependencyFilter dependencyFilter = this.getDependencyFilter();
+
+        final NoticeTemplate compiledNoticeTemplate = this.loadNoticeTemplate(finder);
+        final String mappingsFingerprint =
+                this.lockFile ? this.getMappingsFingerprint(finder) : null;
+
+        // Build every needed dependency graph up front if it can be done in parallel
+        if (this.graphBuildThreads > 1) {
+            final Set<MavenProject> parsedProjects = new LinkedHashSet<MavenProject>();
+            for (final MavenProject noticeProject : noticeProjects) {
+                parsedProjects.addAll(this.getParsedProjects(noticeProject));
+            }
+            this.loadDependencyTrees(parsedProjects, dependencyTrees);
+        }
+
+        // Report the unresolved artifacts of every NOTICE before failing
+        final List<String> unresolvedProjects = new ArrayList<String>();
+        int unresolvedCount = 0;
+
+        final ExecutorService resolutionExecutor = this.createResolutionExecutor();
+        try {
+            for (final MavenProject noticeProject : noticeProjects) {
+                final LicenseResolvingNodeVisitor visitor =
+                        new LicenseResolvingNodeVisitor(
+                                logger,
+                                licenseLookupHelper,
+                                remoteArtifactRepositories,
+                                this.mavenProjectBuilder,
+                                this.localRepository,
+                                pomLicenseRegistry,
+                                pomLicenseCache,
+                                pomLicenseReader,
+                                resolutionExecutor,
+                                dependencyFilter,
+                                resolutions);
+
+                if (this.lockFile && this.isLockFileRead()) {
+                    this.loadLockedResolutions(noticeProject, mappingsFingerprint, resolutions);
+                }
+
+                this.parseProject(noticeProject, visitor, dependencyTrees);
+
+                // Check for any unresolved artifacts
+                final Set<Artifact> unresolvedArtifacts = visitor.getUnresolvedArtifacts();
+                if (this.reportUnresolved(noticeProject, unresolvedArtifacts)) {
+                    unresolvedProjects.add(noticeProject.getName());
+                    unresolvedCount += unresolvedArtifacts.size();
+                    continue;
+                }
+
+                final Set<ArtifactLicenseInfo> resolvedLicenses = visitor.getResolvedLicenses();
+
+                // Render the notice data in place of the template placeholder as it is consumed
+                final NoticeContents noticeContents =
+                        new NoticeContents(
+                                compiledNoticeTemplate,
+                                resolvedLicenses,
+                                dependencyFilter,
+                                this.getNoticeLineFormat(),
+                                noticeProject);
+
+                // Let the subclass deal with the generated NOTICE file
+                this.handleNotice(finder, noticeProject, noticeContents);
+
+                if (this.lockFile && this.isLockFileWritten()) {
+                    this.writeLockFile(
+                            noticeProject, mappingsFingerprint, visitor.getLockEntries());
+                }
+            }
+        } finally {
+            if (resolutionExecutor != null) {
+                resolutionExecutor.shutdownNow();
+            }
+        }
+
+        if (unresolvedProjects.size() == 1 && noticeProjects.size() == 1) {
+            throw new MojoFailureException(
+                    "Failed to find Licenses for " + unresolvedCount + " artifacts");
+        } else if (!unresolvedProjects.isEmpty()) {
+            throw new MojoFailureException(
+                    "Failed to find Licenses for "
+                            + unresolvedCount
+                            + " artifacts of "
+                            + StringUtils.join(unresolvedProjects, ", "));
+        }
+
+        if (inputFingerprint != null && inputFingerprint.getUnstableInput() == null) {
+            try {
+                inputFingerprint.save(stateFile, trackedFiles);
+            } catch (IOException e) {
+                logger.warn("Failed to write incremental build state to: " + stateFile, e);
+            }
+        }
+    }
+
+    /**
+     * @return true if the goal reuses the licenses in the {@link #lockFile}
+     */
+    protected boolean isLockFileRead() {
+        return false;
+    }
 
-        final LicenseResolvingNodeVisitor visitor =
-                new LicenseResolvingNodeVisitor(
-                        logger,
-                        licenseLookupHelper,
-                        remoteArtifactRepositories,
-                        this.mavenProjectBuilder,
-                        this.localRepository);
+    /**
+     * @return true if the goal writes the {@link #lockFile}
+     */
+    protected boolean isLockFileWritten() {
+        return false;
+    }
 
-        this.parseProject(this.project, visitor);
+    /**
+     * Resolve the lock file kept next to the NOTICE file of a project
+     *
+     * @param noticeProject MavenProject the NOTICE is generated for
+     * @return File the NOTICE lock file
+     */
+    protected File getNoticeLockFile(MavenProject noticeProject) {
+        final File noticeFile = this.getNoticeOutputFile(noticeProject);
+        return new File(noticeFile.getParentFile(), noticeFile.getName() + ".lock");
+    }
 
-        // Check for any unresolved artifacts
-        final Set<Artifact> unresolvedArtifacts = visitor.getUnresolvedArtifacts();
-        this.checkUnresolved(unresolvedArtifacts);
+    /**
+     * Add the licenses in the project's lock file to the resolutions so they aren't resolved
+     * again. SNAPSHOT artifacts and locks written with different license mappings are ignored.
+     *
+     * @param noticeProject MavenProject the NOTICE is generated for
+     * @param mappingsFingerprint Fingerprint of the current license mappings
+     * @param resolutions The resolutions shared by the visitors
+     */
+    protected void loadLockedResolutions(
+            MavenProject noticeProject,
+            String mappingsFingerprint,
+            ConcurrentMap<Artifact, Future<LicenseResolvingNodeVisitor.ArtifactResolution>>
+                    resolutions) {
+        final Log logger = this.getLog();
+        final File noticeLockFile = this.getNoticeLockFile(noticeProject);
 
-        // Convert the resovled notice data into a String
-        final Set<ArtifactLicenseInfo> resolvedLicenses = visitor.getResolvedLicenses();
-        final String noticeLines = this.generateNoticeLines(resolvedLicenses);
-        final String noticeTemplateContents = this.readNoticeTemplate(finder);
+        final NoticeLock noticeLock;
+        try {
+            noticeLock = NoticeLock.read(noticeLockFile);
+        } catch (IOException e) {
+            logger.warn(
+                    "Failed to read NOTICE lock file, resolving all licenses: " + noticeLockFile,
+                    e);
+            return;
+        }
+        if (noticeLock == null) {
+            logger.info("No NOTICE lock file at " + noticeLockFile + ", resolving all licenses");
+            return;
+        }
+        if (!mappingsFingerprint.equals(noticeLock.getMappingsFingerprint())) {
+            logger.info(
+                    "License mappings changed since "
+                            + noticeLockFile
+                            + " was written, resolving all licenses");
+            return;
+        }
 
-        // Replace the template placeholder with the generated notice data
-        final String noticeContents =
-                noticeTemplateContents.replace(this.noticeTemplatePlaceholder, noticeLines);
+        int lockedCount = 0;
+        for (final NoticeLock.Entry entry : noticeLock.getEntries()) {
+            // SNAPSHOT POMs can change without the coordinates changing
+            if (ArtifactUtils.isSnapshot(entry.getVersion())) {
+                continue;
+            }
+
+            final Artifact artifact =
+                    this.artifactFactory.createArtifactWithClassifier(
+                            entry.getGroupId(),
+                            entry.getArtifactId(),
+                            entry.getVersion(),
+                            entry.getType(),
+                            entry.getClassifier());
+            final Future<LicenseResolvingNodeVisitor.ArtifactResolution> resolution =
+                    LicenseResolvingNodeVisitor.createResolution(
+                            entry.getName(), entry.getLicenseName(), entry.getSource());
+            if (resolutions.putIfAbsent(artifact, resolution) == null) {
+                lockedCount++;
+            }
+        }
+        logger.info("Reusing " + lockedCount + " licenses from " + noticeLockFile);
+    }
+
+    /**
+     * Write the licenses resolved for a project to its lock file
+     *
+     * @param noticeProject MavenProject the NOTICE is generated for
+     * @param mappingsFingerprint Fingerprint of the current license mappings
+     * @param lockEntries The resolved licenses
+     * @throws MojoFailureException If the lock file can't be written
+     */
+    protected void writeLockFile(
+            MavenProject noticeProject,
+            String mappingsFingerprint,
+            List<NoticeLock.Entry> lockEntries)
+            throws MojoFailureException {
+        final File noticeLockFile = this.getNoticeLockFile(noticeProject);
+        try {
+            if (!new NoticeLock(mappingsFingerprint, lockEntries).write(noticeLockFile)) {
+                this.getLog().debug("NOTICE lock file is up to date: " + noticeLockFile);
+            }
+        } catch (IOException e) {
+            throw new MojoFailureException(
+                    "Failed to write NOTICE lock file to: " + noticeLockFile, e);
+        }
+    }
+
+    /**
+     * @param finder ResourceFinder
+     * @return Fingerprint of the content of the licenseMapping files
+     * @throws MojoFailureException If the licenseMapping files can't be read
+     */
+    protected String getMappingsFingerprint(ResourceFinder finder) throws MojoFailureException {
+        final BuildFingerprint fingerprint = new BuildFingerprint();
+        fingerprint.add(
+                "licenseMappingChecksums",
+                new LicenseLookupHelper(this.getLog(), finder)
+                        .getLicenseLookupChecksums(this.licenseMapping));
+        return fingerprint.getValue();
+    }
 
-        // Let the subclass deal with the generated NOTICE file
-        this.handleNotice(finder, noticeContents);
+    /**
+     * The file the input fingerprint of the execution is stored in
+     *
+     * @return File in the build directory of the current project
+     */
+    protected File getIncrementalStateFile() {
+        String stateName = this.getClass().getSimpleName();
+        if (this.mojoExecution != null) {
+            stateName = this.mojoExecution.getGoal() + "-" + this.mojoExecution.getExecutionId();
+        }
+        final File stateDirectory =
+                new File(this.project.getBuild().getDirectory(), "notice-maven-plugin");
+        return new File(stateDirectory, stateName + ".fingerprint");
+    }
+
+    /** @return The version of this plugin, null if it isn't known */
+    private String getPluginVersion() {
+        if (this.mojoExecution == null || this.mojoExecution.getMojoDescriptor() == null) {
+            return null;
+        }
+        final PluginDescriptor pluginDescriptor =
+                this.mojoExecution.getMojoDescriptor().getPluginDescriptor();
+        return pluginDescriptor != null ? pluginDescriptor.getVersion() : null;
+    }
+
+    private boolean isUpToDate(
+            BuildFingerprint inputFingerprint, File stateFile, List<File> noticeFiles) {
+        final String unstableInput = inputFingerprint.getUnstableInput();
+        if (unstableInput != null) {
+            this.getLog().debug("Not checking NOTICE inputs, depends on: " + unstableInput);
+            return false;
+        }
+
+        try {
+            return inputFingerprint.isUpToDate(stateFile, noticeFiles);
+        } catch (IOException e) {
+            this.getLog().debug("Failed to read incremental build state from: " + stateFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * Fingerprint everything the generated NOTICE files depend on: the plugin version, the
+     * configuration, the content of the licenseMapping files and template, and the dependencies,
+     * names and licenses of every parsed module and of the reactor modules they depend on.
+     * Released dependencies are immutable so their coordinates stand in for their POMs.
+     *
+     * @param finder ResourceFinder
+     * @param noticeProjects The projects NOTICE files are generated for
+     * @param noticeFiles The NOTICE file of each project
+     * @return BuildFingerprint the fingerprint of the inputs
+     * @throws MojoFailureException If the licenseMapping files or template can't be read
+     */
+    protected BuildFingerprint computeInputFingerprint(
+            ResourceFinder finder, List<MavenProject> noticeProjects, List<File> noticeFiles)
+            throws MojoFailureException {
+        final BuildFingerprint fingerprint = new BuildFingerprint();
+        fingerprint.add("goal", this.getIncrementalStateFile().getName());
+
+        // A new plugin version may generate different NOTICE files from the same inputs, and a
+        // SNAPSHOT of the plugin can change without its version changing
+        final String pluginVersion = this.getPluginVersion();
+        fingerprint.add("pluginVersion", pluginVersion);
+        if (pluginVersion != null && ArtifactUtils.isSnapshot(pluginVersion)) {
+            fingerprint.addUnstable("notice-maven-plugin:" + pluginVersion);
+        }
+
+        fingerprint.add("noticeMessage", this.noticeMessage);
+        fingerprint.add("noticeTemplatePlaceholder", this.noticeTemplatePlaceholder);
+        fingerprint.add("includeScopes", sorted(this.includeScopes));
+        fingerprint.add("excludeScopes", sorted(this.excludeScopes));
+        fingerprint.add("excludeOptional", this.excludeOptional);
+        fingerprint.add("excludedModules", sorted(this.excludedModules));
+        fingerprint.add("includeChildDependencies", this.includeChildDependencies);
+        fingerprint.add("encoding", this.encoding);
+        fingerprint.add("lockFile", this.lockFile);
+
+        fingerprint.add("licenseMapping", Arrays.asList(this.licenseMapping));
+        fingerprint.add(
+                "licenseMappingChecksums",
+                new LicenseLookupHelper(this.getLog(), finder)
+                        .getLicenseLookupChecksums(this.licenseMapping));
+
+        final URL templateUrl = finder.findResource(this.noticeTemplate);
+        try {
+            fingerprint.add("noticeTemplate", Checksums.sha1(templateUrl));
+        } catch (IOException e) {
+            throw new MojoFailureException(
+                    "Failed to open NOTICE Template File '"
+                            + this.noticeTemplate
+                            + "' from: "
+                            + templateUrl,
+                    e);
+        }
+
+        final Map<String, MavenProject> reactorProjects = new HashMap<String, MavenProject>();
+        if (this.session != null) {
+            for (final MavenProject reactorProject : this.session.getProjects()) {
+                reactorProjects.put(
+                        toProjectKey(
+                                reactorProject.getGroupId(),
+                                reactorProject.getArtifactId(),
+                                reactorProject.getVersion()),
+                        reactorProject);
+            }
+        }
+
+        final Set<MavenProject> fingerprintedProjects = new LinkedHashSet<MavenProject>();
+        for (int i = 0; i < noticeProjects.size(); i++) {
+            fingerprint.add("notice", noticeFiles.get(i).getAbsolutePath());
+            for (final MavenProject moduleProject : this.getParsedProjects(noticeProjects.get(i))) {
+                fingerprint.add("module", moduleProject.getId());
+                this.addProjectInputs(
+                        fingerprint, moduleProject, reactorProjects, fingerprintedProjects);
+            }
+        }
+
+        return fingerprint;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addProjectInputs(
+            BuildFingerprint fingerprint,
+            MavenProject moduleProject,
+            Map<String, MavenProject> reactorProjects,
+            Set<MavenProject> fingerprintedProjects) {
+        if (!fingerprintedProjects.add(moduleProject)) {
+            return;
+        }
+
+        fingerprint.add("project", moduleProject.getId());
+        fingerprint.add("name", moduleProject.getName());
+        fingerprint.add("url", moduleProject.getUrl());
+        fingerprint.add("inceptionYear", moduleProject.getInceptionYear());
+        fingerprint.add(
+                "organization",
+                moduleProject.getOrganization() == null
+                        ? null
+                        : moduleProject.getOrganization().getName());
+        for (final License license : (List<License>) moduleProject.getLicenses()) {
+            fingerprint.add("license", license.getName());
+        }
+
+        // Collected dependencies, only available once Maven resolved them for the module. Without
+        // them a version range in a dependency's POM could change the tree unnoticed
+        final Set<Artifact> artifacts = moduleProject.getArtifacts();
+        if (artifacts.isEmpty() && !moduleProject.getDependencies().isEmpty()) {
+            fingerprint.addUnstable(moduleProject.getId() + " (dependencies not resolved)");
+        }
+        for (final Artifact artifact : artifacts) {
+            fingerprint.add(
+                    "artifact",
+                    artifact.getId() + ":" + artifact.getScope() + ":" + artifact.isOptional());
+            this.checkStable(
+                    fingerprint,
+                    artifact.getGroupId(),
+                    artifact.getArtifactId(),
+                    artifact.getBaseVersion(),
+                    reactorProjects,
+                    fingerprintedProjects);
+        }
+
+        // Declared and managed dependencies determine the dependency tree
+        for (final Dependency dependency : (List<Dependency>) moduleProject.getDependencies()) {
+            fingerprint.add("dependency", toFingerprint(dependency));
+            this.checkStable(
+                    fingerprint,
+                    dependency.getGroupId(),
+                    dependency.getArtifactId(),
+                    dependency.getVersion(),
+                    reactorProjects,
+                    fingerprintedProjects);
+        }
+        final DependencyManagement dependencyManagement =
+                moduleProject.getDependencyManagement();
+        if (dependencyManagement != null) {
+            for (final Dependency dependency : dependencyManagement.getDependencies()) {
+                fingerprint.add("managedDependency", toFingerprint(dependency));
+                this.checkStable(
+                        fingerprint,
+                        dependency.getGroupId(),
+                        dependency.getArtifactId(),
+                        dependency.getVersion(),
+                        reactorProjects,
+                        fingerprintedProjects);
+            }
+        }
     }
 
     /*
-     * Called with the expected NOTICE file contents for this project.
+     * Reactor modules are fingerprinted in full, other SNAPSHOTs and version ranges make the
+     * inputs unstable
+     */
+    private void checkStable(
+            BuildFingerprint fingerprint,
+            String groupId,
+            String artifactId,
+            String version,
+            Map<String, MavenProject> reactorProjects,
+            Set<MavenProject> fingerprintedProjects) {
+        final String id = toProjectKey(groupId, artifactId, version);
+        final MavenProject reactorProject = reactorProjects.get(id);
+        if (reactorProject != null) {
+            this.addProjectInputs(
+                    fingerprint, reactorProject, reactorProjects, fingerprintedProjects);
+        } else if (version == null
+                || ArtifactUtils.isSnapshot(version)
+                || version.startsWith("[")
+                || version.startsWith("(")) {
+            fingerprint.addUnstable(id);
+        }
+    }
+
+    /*
+     * groupId:artifactId:version, the packaging of a dependency isn't known so it can't be part
+     * of the key like it is of MavenProject.getId()
+     */
+    private static String toProjectKey(String groupId, String artifactId, String version) {
+        return ArtifactUtils.versionlessKey(groupId, artifactId) + ":" + version;
+    }
+
+    private static String toFingerprint(Dependency dependency) {
+        final StringBuilder builder =
+                new StringBuilder(dependency.getManagementKey())
+                        .append(':')
+                        .append(dependency.getClassifier())
+                        .append(':')
+                        .append(dependency.getVersion())
+                        .append(':')
+                        .append(dependency.getScope())
+                        .append(':')
+                        .append(dependency.isOptional());
+        for (final Exclusion exclusion : dependency.getExclusions()) {
+            builder.append(':')
+                    .append(exclusion.getGroupId())
+                    .append('/')
+                    .append(exclusion.getArtifactId());
+        }
+        return builder.toString();
+    }
+
+    private static Set<String> sorted(Set<String> values) {
+        return values == null ? Collections.<String>emptySet() : new TreeSet<String>(values);
+    }
+
+    /**
+     * The projects to generate a NOTICE file for, the current project and in aggregate mode every
+     * module collected by it. The current configuration applies to all of them.
+     *
+     * @return List of MavenProject
+     */
+    @SuppressWarnings("unchecked")
+    protected List<MavenProject> getNoticeProjects() {
+        final List<MavenProject> noticeProjects = new ArrayList<MavenProject>();
+        noticeProjects.add(this.project);
+
+        final List<MavenProject> collectedProjects = this.project.getCollectedProjects();
+        if (this.aggregate && this.generateChildNotices && collectedProjects != null) {
+            noticeProjects.addAll(collectedProjects);
+        }
+        return noticeProjects;
+    }
+
+    /**
+     * Create the persistent cache of licenses read from dependency POMs
+     *
+     * @return PomLicenseCache the cache, null if caching is disabled
+     */
+    protected PomLicenseCache createPomLicenseCache() {
+        if (!this.licenseCache) {
+            return null;
+        }
+
+        File cacheDirectory = this.licenseCacheDirectory;
+        if (cacheDirectory == null) {
+            cacheDirectory =
+                    new File(
+                            this.localRepository.getBasedir(),
+                            ".cache/notice-maven-plugin/pom-licenses");
+        }
+        this.getLog().debug("Using POM license cache: " + cacheDirectory);
+        return new PomLicenseCache(this.getLog(), cacheDirectory, this.localRepository);
+    }
+
+    /**
+     * Create the executor used to resolve artifact licenses concurrently
+     *
+     * @return ExecutorService the executor, null if licenses should be resolved serially
+     */
+    protected ExecutorService createResolutionExecutor() {
+        if (this.resolutionThreads <= 1) {
+            return null;
+        }
+
+        this.getLog().debug("Resolving licenses using " + this.resolutionThreads + " threads");
+        return Executors.newFixedThreadPool(
+                this.resolutionThreads, new DaemonThreadFactory("notice-license-resolver"));
+    }
+
+    /*
+     * Called with the expected NOTICE file contents for a project.
      * 
      * @param finder
      * 
-     * @param noticeContents
+     * @param noticeProject The project the NOTICE is for, the current project unless aggregating
+     * 
+     * @param noticeContents The contents, rendered each time they are written or read
      * 
      * @throws MojoFailureException
      */
-    protected abstract void handleNotice(ResourceFinder finder, String noticeContents)
+    protected abstract void handleNotice(
+            ResourceFinder finder, MavenProject noticeProject, NoticeContents noticeContents)
             throws MojoFailureException;
 
     /**
@@ -317,15 +1057,60 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
      * @throws MojoExecutionException exception
      * @throws MojoFailureException exception
      */
-    @SuppressWarnings("unchecked")
     protected void parseProject(MavenProject project, DependencyNodeVisitor visitor)
             throws MojoExecutionException, MojoFailureException {
+        this.parseProject(project, visitor, new HashMap<MavenProject, DependencyNode>());
+    }
+
+    /**
+     * Visit the dependency trees of the project and, if {@link #includeChildDependencies} is
+     * enabled, its child modules. Trees are taken from and added to the map so each is only built
+     * once when generating multiple NOTICE files.
+     *
+     * @param project MavenProject
+     * @param visitor DependencyNodeVisitor
+     * @param dependencyTrees Map of already built dependency trees
+     *
+     * @throws MojoExecutionException exception
+     * @throws MojoFailureException exception
+     */
+    protected void parseProject(
+            MavenProject project,
+            DependencyNodeVisitor visitor,
+            Map<MavenProject, DependencyNode> dependencyTrees)
+            throws MojoExecutionException, MojoFailureException {
         final Log logger = this.getLog();
-        logger.info("Parsing Dependencies for: " + project.getName());
 
-        // Load and parse immediate dependencies
-        final DependencyNode tree = this.loadDependencyTree(project);
-        tree.accept(visitor);
+        for (final MavenProject moduleProject : this.getParsedProjects(project)) {
+            logger.info("Parsing Dependencies for: " + moduleProject.getName());
+            DependencyNode tree = dependencyTrees.get(moduleProject);
+            if (tree == null) {
+                tree = this.loadDependencyTree(moduleProject);
+                dependencyTrees.put(moduleProject, tree);
+            }
+            tree.accept(visitor);
+        }
+    }
+
+    /**
+     * The distinct projects whose dependencies make up the project's NOTICE, in the order they
+     * are parsed. Child modules are recursed into depth first, a module reachable through several
+     * parents is only parsed when first reached as later parses can't add anything.
+     *
+     * @param project MavenProject
+     * @return List of MavenProject
+     */
+    protected List<MavenProject> getParsedProjects(MavenProject project) {
+        final Set<MavenProject> parsedProjects = new LinkedHashSet<MavenProject>();
+        this.collectParsedProjects(project, parsedProjects);
+        return new ArrayList<MavenProject>(parsedProjects);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collectParsedProjects(MavenProject project, Set<MavenProject> parsedProjects) {
+        if (!parsedProjects.add(project)) {
+            return;
+        }
 
         // If not including child deps don't recurse on modules
         if (!this.includeChildDependencies) {
@@ -344,7 +1129,7 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
                 continue;
             }
 
-            this.parseProject(moduleProject, visitor);
+            this.collectParsedProjects(moduleProject, parsedProjects);
         }
     }
 
@@ -359,31 +1144,34 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
     protected boolean isExcluded(MavenProject mavenProject, String rootArtifactId) {
         final Log logger = this.getLog();
 
-        final String artifactId = mavenProject.getArtifactId();
-        if (this.excludedModules.contains(artifactId)) {
+        final ModuleExclusions exclusions;
+        synchronized (this) {
+            if (this.moduleExclusions == null) {
+                this.moduleExclusions = new ModuleExclusions(this.excludedModules);
+            }
+            exclusions = this.moduleExclusions;
+        }
+
+        final String excludingArtifactId =
+                exclusions.getExcludingArtifactId(mavenProject, rootArtifactId);
+        if (excludingArtifactId == null) {
+            return false;
+        }
+
+        if (excludingArtifactId.equals(mavenProject.getArtifactId())) {
             logger.info(
                     "Skipping aggregation of child module "
                             + mavenProject.getName()
                             + " with excluded artifactId: "
-                            + artifactId);
-            return true;
-        }
-
-        MavenProject parentProject = mavenProject.getParent();
-        while (parentProject != null && !rootArtifactId.equals(parentProject.getArtifactId())) {
-            final String parentArtifactId = parentProject.getArtifactId();
-            if (this.excludedModules.contains(parentArtifactId)) {
-                logger.info(
-                        "Skipping aggregation of child module "
-                                + mavenProject.getName()
-                                + " with excluded parent artifactId: "
-                                + parentArtifactId);
-                return true;
-            }
-            parentProject = parentProject.getParent();
+                            + excludingArtifactId);
+        } else {
+            logger.info(
+                    "Skipping aggregation of child module "
+                            + mavenProject.getName()
+                            + " with excluded parent artifactId: "
+                            + excludingArtifactId);
         }
-
-        return false;
+        return true;
     }
 
     /**
@@ -396,16 +1184,53 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
      * @throws MojoFailureException exception
      */
     protected void checkUnresolved(Set<Artifact> unresolvedArtifacts) throws MojoFailureException {
+        this.checkUnresolved(this.project, unresolvedArtifacts);
+    }
+
+    /**
+     * Check if there are any unresolved artifacts in the Set, writing the stub mappings file to
+     * the build directory of the NOTICE project.
+     *
+     * @param noticeProject MavenProject the NOTICE is generated for
+     * @param unresolvedArtifacts Set of Artifact
+     *
+     * @throws MojoFailureException exception
+     */
+    protected void checkUnresolved(MavenProject noticeProject, Set<Artifact> unresolvedArtifacts)
+            throws MojoFailureException {
+        if (this.reportUnresolved(noticeProject, unresolvedArtifacts)) {
+            throw new MojoFailureException(
+                    "Failed to find Licenses for " + unresolvedArtifacts.size() + " artifacts");
+        }
+    }
+
+    /**
+     * Log the unresolved artifacts in the Set and write the stub mappings file for them to the
+     * build directory of the NOTICE project.
+     *
+     * @param noticeProject MavenProject the NOTICE is generated for
+     * @param unresolvedArtifacts Set of Artifact
+     * @return true if there are unresolved artifacts
+     */
+    protected boolean reportUnresolved(
+            MavenProject noticeProject, Set<Artifact> unresolvedArtifacts) {
         final Log logger = this.getLog();
 
         if (unresolvedArtifacts.isEmpty()) {
-            return;
+            return false;
         }
 
         final LicenseLookup licenseLookup = new LicenseLookup();
         final List<ArtifactLicense> artifacts = licenseLookup.getArtifact();
 
-        logger.error("Failed to find Licenses for the following dependencies: ");
+        if (noticeProject == this.project) {
+            logger.error("Failed to find Licenses for the following dependencies: ");
+        } else {
+            logger.error(
+                    "Failed to find Licenses for the following dependencies of "
+                            + noticeProject.getName()
+                            + ": ");
+        }
         for (final Artifact unresolvedArtifact : unresolvedArtifacts) {
             logger.error("\t" + unresolvedArtifact);
 
@@ -423,7 +1248,7 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
         }
         logger.error("Try adding them to a 'licenseMapping' file.");
 
-        final File buildDir = new File(project.getBuild().getDirectory());
+        final File buildDir = new File(noticeProject.getBuild().getDirectory());
         final File mappingsfile = new File(buildDir, "license-mappings.xml");
 
         // Make sure the target directory exists
@@ -443,9 +1268,7 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
         } catch (JAXBException e) {
             logger.warn("Failed to write stub license-mappings.xml file to: " + mappingsfile, e);
         }
-
-        throw new MojoFailureException(
-                "Failed to find Licenses for " + unresolvedArtifacts.size() + " artifacts");
+        return true;
     }
 
     /**
@@ -456,52 +1279,43 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
      * @return String the generated notice lines
      */
     protected String generateNoticeLines(Set<ArtifactLicenseInfo> resolvedLicenses) {
-        final StringBuilder builder = new StringBuilder();
-
-        final MessageFormat messageFormat = getNoticeMessageFormat();
-
-        for (final ArtifactLicenseInfo resolvedLicense : resolvedLicenses) {
-            if (!includeScopes.isEmpty()) {
-                if (resolvedLicense.getScope() == null
-                        || !includeScopes.contains(resolvedLicense.getScope())) {
-                    continue;
-                }
-            }
-            if (!excludeScopes.isEmpty()) {
-                if (resolvedLicense.getScope() != null
-                        && excludeScopes.contains(resolvedLicense.getScope())) {
-                    continue;
-                }
-            }
-            if (excludeOptional && resolvedLicense.isOptional()) {
-                continue;
-            }
-            final String line =
-                    messageFormat.format(
-                            new Object[] {
-                                resolvedLicense.getArtifactName(), resolvedLicense.getLicenseName()
-                            });
-            builder.append(line).append(IOUtils.LINE_SEPARATOR);
-        }
+        // A template of just the placeholder renders only the notice lines
+        return new NoticeContents(
+                        NoticeTemplate.compile(
+                                this.noticeTemplatePlaceholder, this.noticeTemplatePlaceholder),
+                        resolvedLicenses,
+                        this.getDependencyFilter(),
+                        this.getNoticeLineFormat(),
+                        null)
+                .toString();
+    }
 
-        return builder.toString();
+    /**
+     * Get the filter for the configured {@link #includeScopes}, {@link #excludeScopes} and {@link
+     * #excludeOptional}
+     *
+     * @return DependencyFilter the dependency filter
+     */
+    DependencyFilter getDependencyFilter() {
+        return new DependencyFilter(
+                this.includeScopes == null ? Collections.<String>emptySet() : this.includeScopes,
+                this.excludeScopes == null ? Collections.<String>emptySet() : this.excludeScopes,
+                this.excludeOptional);
     }
 
     /**
-     * Get the {@link MessageFormat} of the configured {@link #noticeMessage}
-     * 
-     * @return MessageFormat the Notice Message Format
+     * Get the compiled {@link NoticeLineFormat} of the configured {@link #noticeMessage}
+     *
+     * @return NoticeLineFormat the Notice Message Format
      */
-    protected final MessageFormat getNoticeMessageFormat() {
-        final MessageFormat messageFormat;
+    final NoticeLineFormat getNoticeLineFormat() {
         synchronized (this) {
-            if (this.parsedNoticeMessage == null
-                    || !this.noticeMessage.equals(this.parsedNoticeMessage.toPattern())) {
-                this.parsedNoticeMessage = new MessageFormat(this.noticeMessage);
+            if (this.noticeLineFormat == null
+                    || !this.noticeMessage.equals(this.noticeLineFormat.getPattern())) {
+                this.noticeLineFormat = NoticeLineFormat.compile(this.noticeMessage);
             }
-            messageFormat = this.parsedNoticeMessage;
+            return this.noticeLineFormat;
         }
-        return messageFormat;
     }
 
     /**
@@ -514,9 +1328,10 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
      * @return String the Notice Template Content
      */
     protected String readNoticeTemplate(ResourceFinder finder) throws MojoFailureException {
-        final URL inputFile = finder.findResource(this.noticeTemplate);
-
+        return this.readNoticeTemplate(finder.findResource(this.noticeTemplate));
+    }
 
+    private String readNoticeTemplate(URL inputFile) throws MojoFailureException {
         final StringBuilder noticeTemplateContents = new StringBuilder();
         InputStream inputStream = null;
         try {
@@ -542,41 +1357,263 @@ public abstract class AbstractNoticeMojo extends AbstractMojo {
         return noticeTemplateContents.toString();
     }
 
+    /**
+     * Load the compiled template for NOTICE file generation. Compiled templates are shared by
+     * every module of the build and recompiled when the template file changes.
+     *
+     * @param finder ResourceFinder
+     * @throws MojoFailureException exception
+     * @return NoticeTemplate the compiled template
+     */
+    protected NoticeTemplate loadNoticeTemplate(ResourceFinder finder)
+            throws MojoFailureException {
+        final URL templateUrl = finder.findResource(this.noticeTemplate);
+        final String placeholder = this.noticeTemplatePlaceholder;
+
+        // Only templates that can be checked for changes are cached
+        final String fingerprint = LicenseLookupHelper.getFingerprint(templateUrl);
+        if (fingerprint == null) {
+            return NoticeTemplate.compile(this.readNoticeTemplate(templateUrl), placeholder);
+        }
+
+        try {
+            return NOTICE_TEMPLATE_CACHE.get(
+                    templateUrl + "|" + this.encoding + "|" + placeholder,
+                    fingerprint,
+                    new Callable<NoticeTemplate>() {
+                        public NoticeTemplate call() throws MojoFailureException {
+                            return NoticeTemplate.compile(
+                                    readNoticeTemplate(templateUrl), placeholder);
+                        }
+                    });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoFailureException) {
+                throw (MojoFailureException) e.getCause();
+            }
+            throw new MojoFailureException(
+                    "Failed to open NOTICE Template File '"
+                            + this.noticeTemplate
+                            + "' from: "
+                            + templateUrl,
+                    e.getCause());
+        }
+    }
+
     /**
      * Resolve the {@link File} to write the generated NOTICE file to
      * 
      * @return File the generated NOTICE file
      */
     protected File getNoticeOutputFile() {
+        return this.getNoticeOutputFile(this.project);
+    }
+
+    /**
+     * Resolve the {@link File} to write the generated NOTICE file for a project to. A relative
+     * outputDir is resolved against the project, an absolute one configured for the current
+     * project is rebased onto the project.
+     *
+     * @param noticeProject MavenProject the NOTICE is generated for
+     * @return File the generated NOTICE file
+     */
+    protected File getNoticeOutputFile(MavenProject noticeProject) {
         if (this.outputDir == null) {
             this.outputDir = "";
         }
 
         File outputPath = new File(this.outputDir);
         if (!outputPath.isAbsolute()) {
-            outputPath = new File(project.getBasedir(), this.outputDir);
+            outputPath = new File(noticeProject.getBasedir(), this.outputDir);
+        } else if (noticeProject != this.project) {
+            final Path projectBase = this.project.getBasedir().toPath().normalize();
+            final Path noticeBase = noticeProject.getBasedir().toPath().normalize();
+            final Path configuredPath = outputPath.toPath().normalize();
+            if (configuredPath.startsWith(projectBase)) {
+                outputPath = noticeBase.resolve(projectBase.relativize(configuredPath)).toFile();
+            } else {
+                outputPath = new File(outputPath, projectBase.relativize(noticeBase).toString());
+            }
         }
         return new File(outputPath, this.fileName);
     }
 
     /**
-     * Create the {@link ResourceFinderImpl} for the project
+     * Create the {@link ResourceFinderImpl} for the project. The compile classpath is only
+     * resolved if a resource isn't found in the file system and found resources are remembered for
+     * the rest of the reactor build. The finder must be closed once it is no longer used.
      *
-     * @throws MojoExecutionException exception
-     * 
      * @return ResourceFinder The project ressources
      */
-    @SuppressWarnings("unchecked")
-    protected ResourceFinder getResourceFinder() throws MojoExecutionException {
-        final ResourceFinder finder = new ResourceFinderImpl(this.project);
+    protected ResourceFinder getResourceFinder() {
+        return createResourceFinder(
+                this.project, this.repoSystem, this.repoSession, this.createUrlResourceCache());
+    }
+
+    /**
+     * Create the {@link ResourceFinderImpl} used by every goal to read license mappings and
+     * templates, from the file system, the classpath, URLs and artifacts.
+     *
+     * @param project The project resources are relative to
+     * @param repoSystem Resolves artifact resources
+     * @param repoSession The repository session, may be null
+     * @param urlResourceCache The cache of URL resources, may be null
+     * @return ResourceFinder The project ressources
+     */
+    static ResourceFinder createResourceFinder(
+            MavenProject project,
+            RepositorySystem repoSystem,
+            RepositorySystemSession repoSession,
+            UrlResourceCache urlResourceCache) {
+        final ResourceFinder finder =
+                new ResourceFinderImpl(project, getResolvedResources(repoSession));
+        finder.setCompileClassPath(new CompileClasspathProvider(project));
+        finder.setPluginClassPath(AbstractNoticeMojo.class.getClassLoader());
+        finder.setUrlResourceCache(urlResourceCache);
+        finder.setArtifactResourceResolver(
+                new ArtifactResourceResolver(
+                        repoSystem, repoSession, project.getRemoteProjectRepositories()));
+        return finder;
+    }
+
+    /**
+     * Create the on disk cache of HTTP(S) resources
+     *
+     * @return UrlResourceCache the cache, null if caching is disabled
+     */
+    protected UrlResourceCache createUrlResourceCache() {
+        if (!this.urlCache) {
+            return null;
+        }
+        return createUrlResourceCache(
+                this.getLog(),
+                this.urlCacheDirectory,
+                this.urlCacheMaxAge,
+                this.localRepository,
+                this.repoSession);
+    }
+
+    /**
+     * @param logger The log
+     * @param urlCacheDirectory The configured cache directory, may be null for the default
+     * @param urlCacheMaxAge Seconds a cached resource is used without revalidating it
+     * @param localRepository The local repository the default cache directory is in
+     * @param repoSession The repository session, may be null
+     * @return UrlResourceCache the cache, shared with every finder of the session
+     */
+    static UrlResourceCache createUrlResourceCache(
+            Log logger,
+            File urlCacheDirectory,
+            long urlCacheMaxAge,
+            ArtifactRepository localRepository,
+            RepositorySystemSession repoSession) {
+        File cacheDirectory = urlCacheDirectory;
+        if (cacheDirectory == null) {
+            cacheDirectory =
+                    new File(localRepository.getBasedir(), ".cache/notice-maven-plugin/urls");
+        }
+        logger.debug("Using URL cache: " + cacheDirectory);
+        return new UrlResourceCache(
+                logger,
+                cacheDirectory,
+                TimeUnit.SECONDS.toMillis(urlCacheMaxAge),
+                repoSession != null && repoSession.isOffline(),
+                AbstractNoticeMojo.<String, Future<File>>getSessionMap(
+                        repoSession, FETCHED_RESOURCES_KEY));
+    }
+
+    /**
+     * @param session The repository session, may be null
+     * @return The resource URLs found by every {@link ResourceFinder} of the session
+     */
+    static ConcurrentMap<String, URL> getResolvedResources(RepositorySystemSession session) {
+        return getSessionMap(session, RESOLVED_RESOURCES_KEY);
+    }
+
+    /**
+     * @param session The repository session, may be null
+     * @param key The session data key
+     * @return The map stored in the session data, a new map if there is no session
+     */
+    private static <K, V> ConcurrentMap<K, V> getSessionMap(
+            RepositorySystemSession session, String key) {
+        return SessionDataUtils.getOrSet(session, key, new ConcurrentHashMap<K, V>());
+    }
+
+    /** Resolves the compile classpath of a project when first called */
+    static final class CompileClasspathProvider implements Callable<List<String>> {
+        private final MavenProject project;
+
+        CompileClasspathProvider(MavenProject project) {
+            this.project = project;
+        }
+
+        @SuppressWarnings("unchecked")
+        public List<String> call() throws DependencyResolutionRequiredException {
+            return this.project.getCompileClasspathElements();
+        }
+    }
+
+    /**
+     * Build the dependency trees of the projects concurrently using {@link #graphBuildThreads}
+     * threads, adding them to the map. Projects already in the map are skipped.
+     *
+     * @param projects Collection of MavenProject
+     * @param dependencyTrees Map of built dependency trees
+     *
+     * @throws MojoExecutionException exception
+     */
+    protected void loadDependencyTrees(
+            Collection<MavenProject> projects, Map<MavenProject, DependencyNode> dependencyTrees)
+            throws MojoExecutionException {
+        final Map<MavenProject, Future<DependencyNode>> pendingTrees =
+                new LinkedHashMap<MavenProject, Future<DependencyNode>>();
+        final int threads = Math.min(this.graphBuildThreads, projects.size());
+        if (threads < 1) {
+            return;
+        }
+
+        this.getLog().debug("Building dependency graphs using " + threads + " threads");
+        final ExecutorService graphExecutor =
+                Executors.newFixedThreadPool(
+                        threads, new DaemonThreadFactory("notice-graph-builder"));
         try {
-            final List<String> classpathElements = this.project.getCompileClasspathElements();
-            finder.setCompileClassPath(classpathElements);
-        } catch (DependencyResolutionRequiredException e) {
-            throw new MojoExecutionException(e.getMessage(), e);
+            for (final MavenProject moduleProject : projects) {
+                if (dependencyTrees.containsKey(moduleProject)) {
+                    continue;
+                }
+                pendingTrees.put(
+                        moduleProject,
+                        graphExecutor.submit(
+                                new Callable<DependencyNode>() {
+                                    public DependencyNode call() throws MojoExecutionException {
+                                        return loadDependencyTree(moduleProject);
+                                    }
+                                }));
+            }
+
+            for (final Map.Entry<MavenProject, Future<DependencyNode>> pendingTree :
+                    pendingTrees.entrySet()) {
+                try {
+                    dependencyTrees.put(pendingTree.getKey(), pendingTree.getValue().get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException(
+                            "Interrupted building dependency tree for project: "
+                                    + pendingTree.getKey(),
+                            e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof MojoExecutionException) {
+                        throw (MojoExecutionException) e.getCause();
+                    }
+                    throw new MojoExecutionException(
+                            "Cannot build project dependency tree for project: "
+                                    + pendingTree.getKey(),
+                            e.getCause());
+                }
+            }
+        } finally {
+            graphExecutor.shutdownNow();
         }
-        finder.setPluginClassPath(getClass().getClassLoader());
-        return finder;
     }
 
     /**
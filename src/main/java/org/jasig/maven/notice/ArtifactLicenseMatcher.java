@@ -0,0 +1,229 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.jasig.maven.notice.lookup.ArtifactLicense;
+import org.jasig.maven.notice.lookup.MappedVersion;
+import org.jasig.maven.notice.lookup.VersionType;
+import org.jasig.maven.notice.util.MemoryWeights;
+
+/**
+ * The license mappings of a single groupId/artifactId compiled for fast version matching. Exact
+ * versions are hashed by their canonical form, regular expressions are compiled once and version
+ * ranges are stored in a {@link VersionRangeIndex}.
+ *
+ * <p>Matching precedence is:
+ *
+ * <ol>
+ *   <li>The first mapping with an exact (STRING) version equal to the artifact version
+ *   <li>The first mapping with a REGEX or RANGE version matching the artifact version
+ *   <li>The mapping that applies to all versions, reported with a null match type
+ * </ol>
+ *
+ * <p>Matchers are not modified after creation and may be shared between threads.
+ */
+class ArtifactLicenseMatcher {
+    private final List<ArtifactLicense> artifactLicenses;
+    private final Map<String, ArtifactLicense> exactVersions =
+            new HashMap<String, ArtifactLicense>();
+    private final List<Pattern> versionPatterns = new ArrayList<Pattern>();
+    private final List<Integer> versionPatternOrdinals = new ArrayList<Integer>();
+    private final VersionRangeIndex versionRanges;
+    private ArtifactLicense allVersionsLicense;
+
+    /**
+     * @param artifactLicenses The mappings for the artifact, in lookup order
+     * @throws InvalidVersionSpecificationException If a RANGE version is not a valid version range
+     */
+    ArtifactLicenseMatcher(Collection<ArtifactLicense> artifactLicenses)
+            throws InvalidVersionSpecificationException {
+        this.artifactLicenses = new ArrayList<ArtifactLicense>(artifactLicenses);
+
+        final List<VersionRange> ranges = new ArrayList<VersionRange>();
+        final List<Integer> rangeOrdinals = new ArrayList<Integer>();
+
+        for (int ordinal = 0; ordinal < this.artifactLicenses.size(); ordinal++) {
+            final ArtifactLicense artifactLicense = this.artifactLicenses.get(ordinal);
+            final List<MappedVersion> versions = artifactLicense.getVersion();
+
+            // If no versions are specified for an artifact all versions match
+            if (versions.isEmpty()) {
+                if (this.allVersionsLicense == null) {
+                    this.allVersionsLicense = artifactLicense;
+                }
+                continue;
+            }
+
+            for (final MappedVersion version : versions) {
+                switch (version.getType()) {
+                    case REGEX:
+                        {
+                            this.versionPatterns.add(Pattern.compile(version.getValue()));
+                            this.versionPatternOrdinals.add(ordinal);
+                            break;
+                        }
+                    case RANGE:
+                        {
+                            ranges.add(parseVersionRange(version.getValue()));
+                            rangeOrdinals.add(ordinal);
+                            break;
+                        }
+                    default:
+                        {
+                            // First exact match is always used
+                            final String canonicalVersion =
+                                    getCanonicalVersion(version.getValue());
+                            if (!this.exactVersions.containsKey(canonicalVersion)) {
+                                this.exactVersions.put(canonicalVersion, artifactLicense);
+                            }
+                        }
+                }
+            }
+        }
+
+        this.versionRanges = ranges.isEmpty() ? null : new VersionRangeIndex(ranges, rangeOrdinals);
+    }
+
+    /** @return The estimated heap used by the matcher and its mappings */
+    long estimateWeight() {
+        long weight = MemoryWeights.OBJECT * 6;
+        for (final ArtifactLicense artifactLicense : this.artifactLicenses) {
+            weight += MemoryWeights.REFERENCE + LicenseLookupHelper.estimateWeight(artifactLicense);
+            for (final MappedVersion version : artifactLicense.getVersion()) {
+                switch (version.getType()) {
+                    case REGEX:
+                        {
+                            // Compiled pattern
+                            weight += 256 + 8 * version.getValue().length();
+                            break;
+                        }
+                    case RANGE:
+                        {
+                            weight += MemoryWeights.OBJECT * 8;
+                            break;
+                        }
+                    default:
+                        {
+                            weight += MemoryWeights.MAP_ENTRY;
+                        }
+                }
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * @param artifactVersion The version to match
+     * @return The matched license, the license and version type are null if nothing matched
+     */
+    public ResolvedLicense match(ArtifactVersion artifactVersion) {
+        final String version = artifactVersion.toString();
+
+        if (!this.exactVersions.isEmpty()) {
+            final ArtifactLicense artifactLicense =
+                    this.exactVersions.get(getCanonicalVersion(version));
+            if (artifactLicense != null) {
+                return new ResolvedLicense(VersionType.STRING, artifactLicense);
+            }
+        }
+
+        // Find the first mapping with a matching range or regular expression
+        int rangeOrdinal = Integer.MAX_VALUE;
+        if (this.versionRanges != null) {
+            rangeOrdinal = this.versionRanges.match(artifactVersion);
+        }
+
+        int patternOrdinal = Integer.MAX_VALUE;
+        for (int i = 0; i < this.versionPatterns.size(); i++) {
+            final int ordinal = this.versionPatternOrdinals.get(i);
+            if (ordinal > rangeOrdinal) {
+                break;
+            }
+            if (this.versionPatterns.get(i).matcher(version).matches()) {
+                patternOrdinal = ordinal;
+                break;
+            }
+        }
+
+        if (patternOrdinal < rangeOrdinal) {
+            return new ResolvedLicense(
+                    VersionType.REGEX, this.artifactLicenses.get(patternOrdinal));
+        }
+        if (rangeOrdinal < patternOrdinal) {
+            return new ResolvedLicense(VersionType.RANGE, this.artifactLicenses.get(rangeOrdinal));
+        }
+        if (rangeOrdinal != Integer.MAX_VALUE) {
+            // One mapping with both a matching regex and range, the first listed is used
+            final ArtifactLicense artifactLicense = this.artifactLicenses.get(rangeOrdinal);
+            return new ResolvedLicense(
+                    getFirstMatchType(artifactLicense, artifactVersion), artifactLicense);
+        }
+
+        return new ResolvedLicense(null, this.allVersionsLicense);
+    }
+
+    private static VersionType getFirstMatchType(
+            ArtifactLicense artifactLicense, ArtifactVersion artifactVersion) {
+        for (final MappedVersion version : artifactLicense.getVersion()) {
+            if (VersionType.REGEX == version.getType()
+                    && Pattern.matches(version.getValue(), artifactVersion.toString())) {
+                return VersionType.REGEX;
+            }
+            if (VersionType.RANGE == version.getType()) {
+                try {
+                    if (parseVersionRange(version.getValue()).containsVersion(artifactVersion)) {
+                        return VersionType.RANGE;
+                    }
+                } catch (InvalidVersionSpecificationException e) {
+                    // Already validated when the matcher was created
+                }
+            }
+        }
+        return VersionType.RANGE;
+    }
+
+    private static VersionRange parseVersionRange(String range)
+            throws InvalidVersionSpecificationException {
+        final VersionRange versionRange = VersionRange.createFromVersionSpec(range);
+        if (!versionRange.hasRestrictions()) {
+            throw new InvalidVersionSpecificationException(
+                    "'" + range + "' is a version, not a version range like [1.0,2.0)");
+        }
+        return versionRange;
+    }
+
+    /**
+     * @return The canonical form of the version, versions are equal as {@link
+     *     org.apache.maven.artifact.versioning.DefaultArtifactVersion}s if their canonical forms
+     *     are equal.
+     */
+    static String getCanonicalVersion(String version) {
+        return new ComparableVersion(version).getCanonical();
+    }
+}
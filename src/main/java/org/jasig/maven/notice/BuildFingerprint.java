@@ -0,0 +1,166 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Properties;
+import org.jasig.maven.notice.util.AtomicFiles;
+import org.jasig.maven.notice.util.Checksums;
+
+/**
+ * Fingerprint of the inputs of a NOTICE goal execution. The fingerprint is saved to a state file
+ * along with the checksums of the NOTICE and lock files once the execution succeeds, a later
+ * execution with the same fingerprint is up to date as long as those files are unchanged.
+ *
+ * <p>Inputs that may change without their coordinates changing, like SNAPSHOT dependencies, are
+ * recorded as unstable and an execution with unstable inputs is never up to date.
+ */
+class BuildFingerprint {
+    private static final String FORMAT_VERSION = "1";
+
+    private static final String VERSION_KEY = "version";
+    private static final String FINGERPRINT_KEY = "fingerprint";
+    private static final String OUTPUT_COUNT_KEY = "outputs";
+    private static final String OUTPUT_KEY_PREFIX = "output.";
+    /** Recorded for files that didn't exist when the state was saved */
+    private static final String NO_FILE = "none";
+
+    private final MessageDigest digest = Checksums.getDigest("SHA-256");
+    private String unstableInput;
+    private String value;
+
+    /**
+     * @param name The name of the input
+     * @param input The value of the input, its String form is added to the fingerprint
+     */
+    public void add(String name, Object input) {
+        if (this.value != null) {
+            throw new IllegalStateException("Fingerprint has already been computed");
+        }
+        this.update(name);
+        this.update(String.valueOf(input));
+    }
+
+    /**
+     * @param input Description of an input that can change without its fingerprint changing
+     */
+    public void addUnstable(String input) {
+        if (this.unstableInput == null) {
+            this.unstableInput = input;
+        }
+    }
+
+    /**
+     * @return The first unstable input added, null if all inputs are stable
+     */
+    public String getUnstableInput() {
+        return this.unstableInput;
+    }
+
+    /**
+     * @return The hex encoded fingerprint of the inputs added so far, no more can be added
+     */
+    public String getValue() {
+        if (this.value == null) {
+            this.value = Checksums.toHex(this.digest.digest());
+        }
+        return this.value;
+    }
+
+    /**
+     * @param stateFile The state file saved by a previous execution
+     * @param outputFiles The NOTICE and lock files of the execution
+     * @return true if the inputs are stable, match the saved fingerprint and the files are
+     *     unchanged since it was saved, including whether they exist
+     * @throws IOException If the state or NOTICE files could not be read
+     */
+    public boolean isUpToDate(File stateFile, Collection<File> outputFiles) throws IOException {
+        if (this.unstableInput != null) {
+            return false;
+        }
+
+        final byte[] content = AtomicFiles.readFile(stateFile);
+        if (content == null) {
+            return false;
+        }
+        final Properties state = new Properties();
+        state.load(new ByteArrayInputStream(content));
+
+        if (!FORMAT_VERSION.equals(state.getProperty(VERSION_KEY))
+                || !this.getValue().equals(state.getProperty(FINGERPRINT_KEY))
+                || !String.valueOf(outputFiles.size())
+                        .equals(state.getProperty(OUTPUT_COUNT_KEY))) {
+            return false;
+        }
+
+        for (final File outputFile : outputFiles) {
+            final String checksum =
+                    state.getProperty(OUTPUT_KEY_PREFIX + outputFile.getAbsolutePath());
+            if (checksum == null || !checksum.equals(getChecksum(outputFile))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Save the fingerprint and the checksums of the NOTICE and lock files to the state file
+     *
+     * @param stateFile The state file to write
+     * @param outputFiles The NOTICE and lock files of the execution
+     * @throws IOException If the state file could not be written
+     */
+    public void save(File stateFile, Collection<File> outputFiles) throws IOException {
+        final Properties state = new Properties();
+        state.setProperty(VERSION_KEY, FORMAT_VERSION);
+        state.setProperty(FINGERPRINT_KEY, this.getValue());
+        state.setProperty(OUTPUT_COUNT_KEY, String.valueOf(outputFiles.size()));
+        for (final File outputFile : outputFiles) {
+            state.setProperty(
+                    OUTPUT_KEY_PREFIX + outputFile.getAbsolutePath(), getChecksum(outputFile));
+        }
+
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        state.store(content, null);
+        AtomicFiles.replaceAtomically(stateFile, content.toByteArray());
+    }
+
+    private static String getChecksum(File outputFile) throws IOException {
+        return outputFile.isFile() ? Checksums.sha256(outputFile) : NO_FILE;
+    }
+
+    private void update(String input) {
+        final byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        this.digest.update(
+                new byte[] {
+                    (byte) (bytes.length >>> 24),
+                    (byte) (bytes.length >>> 16),
+                    (byte) (bytes.length >>> 8),
+                    (byte) bytes.length
+                });
+        this.digest.update(bytes);
+    }
+}
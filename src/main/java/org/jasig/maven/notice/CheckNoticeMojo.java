@@ -31,7 +31,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -39,7 +41,9 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
 import org.jasig.maven.notice.util.ResourceFinder;
+import org.jasig.maven.notice.util.SortedMergeDiff;
 
 /**
  * Checks the NOTICE file to make sure it matches the expected output
@@ -51,18 +55,34 @@ import org.jasig.maven.notice.util.ResourceFinder;
 public class CheckNoticeMojo extends AbstractNoticeMojo {
 
     @Override
-    protected void handleNotice(ResourceFinder finder, String noticeContents)
+    protected boolean isLockFileRead() {
+        return true;
+    }
+
+    @Override
+    protected void handleNotice(
+            ResourceFinder finder, MavenProject noticeProject, NoticeContents noticeContents)
             throws MojoFailureException {
         final Log logger = this.getLog();
 
         // Write out the generated notice file
-        final File outputFile = getNoticeOutputFile();
+        final File outputFile = getNoticeOutputFile(noticeProject);
 
         // Make sure the existing NOTICE file exists
         if (!outputFile.exists()) {
             throw new MojoFailureException("No NOTICE file exists at: " + outputFile);
         }
 
+        // Most of the time the files match, check that without loading the existing file
+        try {
+            if (this.contentEquals(noticeContents.getReader(), outputFile)) {
+                logger.info("NOTICE file is up to date");
+                return;
+            }
+        } catch (IOException e) {
+            logger.debug("Failed to compare existing NOTICE File: " + outputFile, e);
+        }
+
         // Load up the existing NOTICE file
         final Reader existingNoticeContents;
         try {
@@ -76,13 +96,25 @@ public class CheckNoticeMojo extends AbstractNoticeMojo {
         }
 
         // Check if the notice files match
-        final String diffText =
-                this.generateDiff(logger, new StringReader(noticeContents), existingNoticeContents);
+        final int[] templateLines = this.getTemplateLineCounts(finder);
+        final String diffText;
+        try {
+            diffText =
+                    this.generateDiff(
+                            logger,
+                            noticeContents.getReader(),
+                            existingNoticeContents,
+                            templateLines[0],
+                            templateLines[1]);
+        } finally {
+            IOUtils.closeQuietly(existingNoticeContents);
+        }
         if (diffText.length() != 0) {
-            final String buildDir = project.getBuild().getDirectory();
+            final String buildDir = noticeProject.getBuild().getDirectory();
             final File expectedNoticeFile = new File(new File(buildDir), "NOTICE.expected");
             try {
-                FileUtils.writeStringToFile(expectedNoticeFile, noticeContents, this.encoding);
+                FileUtils.forceMkdir(expectedNoticeFile.getParentFile());
+                GenerateNoticeMojo.writeNotice(expectedNoticeFile, noticeContents, this.encoding);
             } catch (IOException e) {
                 logger.warn("Failed to write expected NOTICE File to: " + expectedNoticeFile, e);
             }
@@ -99,15 +131,78 @@ public class CheckNoticeMojo extends AbstractNoticeMojo {
         logger.info("NOTICE file is up to date");
     }
 
+    /**
+     * Compare the expected NOTICE contents with the existing file, streaming both in chunks
+     * instead of reading them into memory. Line endings are normalized on both sides, so a match
+     * here always means the line by line diff is empty.
+     *
+     * @param noticeContents Reader of the expected NOTICE contents, not closed
+     * @param existingNoticeFile The existing NOTICE file
+     * @return true if the contents are equal apart from line endings
+     * @throws IOException If the existing file can't be read or decoded
+     */
+    protected boolean contentEquals(Reader noticeContents, File existingNoticeFile)
+            throws IOException {
+        final Reader existingNoticeContents =
+                Files.newBufferedReader(
+                        existingNoticeFile.toPath(), Charset.forName(this.encoding));
+        try {
+            final NormalizedReader expected = new NormalizedReader(noticeContents);
+            final NormalizedReader existing = new NormalizedReader(existingNoticeContents);
+            for (int c = expected.read(); c == existing.read(); c = expected.read()) {
+                if (c < 0) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            existingNoticeContents.close();
+        }
+    }
+
+    /**
+     * Count the template lines before and after the generated notice lines, see {@link
+     * NoticeTemplate#getSurroundingLineCounts()}.
+     *
+     * @param finder ResourceFinder
+     * @return The number of lines before and after, -1 for both if they can't be counted
+     * @throws MojoFailureException If the template can't be read
+     */
+    protected int[] getTemplateLineCounts(ResourceFinder finder) throws MojoFailureException {
+        return this.loadNoticeTemplate(finder).getSurroundingLineCounts();
+    }
+
     protected String generateDiff(
             Log logger, Reader noticeContents, Reader existingNoticeContents) {
+        return this.generateDiff(logger, noticeContents, existingNoticeContents, -1, -1);
+    }
+
+    /**
+     * Diff the expected and existing NOTICE contents. If the number of template lines around the
+     * generated notice lines is known the generated lines are diffed with a linear merge, as they
+     * are sorted, and only the template lines with a general diff.
+     *
+     * @param logger Log
+     * @param noticeContents The expected NOTICE contents
+     * @param existingNoticeContents The existing NOTICE contents
+     * @param prefixLines Number of template lines before the generated lines, -1 if unknown
+     * @param suffixLines Number of template lines after the generated lines, -1 if unknown
+     * @return The diff, empty if the contents match
+     */
+    protected String generateDiff(
+            Log logger,
+            Reader noticeContents,
+            Reader existingNoticeContents,
+            int prefixLines,
+            int suffixLines) {
         final StringBuilder diffText = new StringBuilder();
         try {
             final List<String> expectedLines = IOUtils.readLines(noticeContents);
             final List<String> existingLines = IOUtils.readLines(existingNoticeContents);
-            final Patch<String> diff = DiffUtils.diff(expectedLines, existingLines);
+            final List<Delta<String>> deltas =
+                    this.diffLines(expectedLines, existingLines, prefixLines, suffixLines);
 
-            for (final Delta<String> delta : diff.getDeltas()) {
+            for (final Delta<String> delta : deltas) {
                 final Chunk original = delta.getOriginal();
                 final Chunk revised = delta.getRevised();
 
@@ -149,4 +244,110 @@ public class CheckNoticeMojo extends AbstractNoticeMojo {
         }
         return diffText.toString();
     }
+
+    private List<Delta<String>> diffLines(
+            List<String> expectedLines,
+            List<String> existingLines,
+            int prefixLines,
+            int suffixLines) {
+        final int templateLines = prefixLines + suffixLines;
+        if (prefixLines >= 0
+                && suffixLines >= 0
+                && expectedLines.size() >= templateLines
+                && existingLines.size() >= templateLines) {
+            final int expectedEnd = expectedLines.size() - suffixLines;
+            final int existingEnd = existingLines.size() - suffixLines;
+            final Patch<String> generatedDiff =
+                    SortedMergeDiff.diff(
+                            expectedLines.subList(prefixLines, expectedEnd),
+                            existingLines.subList(prefixLines, existingEnd));
+            if (generatedDiff != null) {
+                final List<Delta<String>> deltas = new ArrayList<Delta<String>>();
+                addDeltas(
+                        deltas,
+                        DiffUtils.diff(
+                                expectedLines.subList(0, prefixLines),
+                                existingLines.subList(0, prefixLines)),
+                        0,
+                        0);
+                addDeltas(deltas, generatedDiff, prefixLines, prefixLines);
+                addDeltas(
+                        deltas,
+                        DiffUtils.diff(
+                                expectedLines.subList(expectedEnd, expectedLines.size()),
+                                existingLines.subList(existingEnd, existingLines.size())),
+                        expectedEnd,
+                        existingEnd);
+                return deltas;
+            }
+        }
+
+        // The generated lines can't be merged, diff everything
+        return DiffUtils.diff(expectedLines, existingLines).getDeltas();
+    }
+
+    /** Add the deltas of a patch of sub lists, moved to the sub lists' offsets */
+    private static void addDeltas(
+            List<Delta<String>> deltas,
+            Patch<String> patch,
+            int originalOffset,
+            int revisedOffset) {
+        for (final Delta<String> delta : patch.getDeltas()) {
+            final Chunk<String> original =
+                    new Chunk<String>(
+                            delta.getOriginal().getPosition() + originalOffset,
+                            delta.getOriginal().getLines());
+            final Chunk<String> revised =
+                    new Chunk<String>(
+                            delta.getRevised().getPosition() + revisedOffset,
+                            delta.getRevised().getLines());
+
+            if (delta instanceof DeleteDelta) {
+                deltas.add(new DeleteDelta<String>(original, revised));
+            } else if (delta instanceof InsertDelta) {
+                deltas.add(new InsertDelta<String>(original, revised));
+            } else {
+                deltas.add(new ChangeDelta<String>(original, revised));
+            }
+        }
+    }
+
+    /** Reads characters in chunks, translating \r\n and \r line endings to \n */
+    private static final class NormalizedReader {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int position;
+        private int length;
+        private boolean skipLineFeed;
+
+        NormalizedReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /** @return The next character, -1 at the end of the stream */
+        int read() throws IOException {
+            while (true) {
+                if (this.position == this.length) {
+                    this.length = this.reader.read(this.buffer);
+                    this.position = 0;
+                    if (this.length < 0) {
+                        this.length = 0;
+                        return -1;
+                    }
+                }
+
+                final char c = this.buffer[this.position++];
+                if (c == '\r') {
+                    this.skipLineFeed = true;
+                    return '\n';
+                }
+                if (c == '\n' && this.skipLineFeed) {
+                    this.skipLineFeed = false;
+                    continue;
+                }
+                this.skipLineFeed = false;
+                return c;
+            }
+        }
+    }
 }
@@ -0,0 +1,171 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.jasig.maven.notice.lookup.ArtifactLicense;
+import org.jasig.maven.notice.util.ResourceFinder;
+import org.jasig.maven.notice.util.UrlResourceCache;
+
+/**
+ * Compiles license mapping XML files into a binary index that the check and generate goals can
+ * memory map via their licenseMappingIndex parameter instead of parsing the XML.
+ */
+@Mojo(
+        name = "compile-mappings",
+        threadSafe = true,
+        requiresDependencyResolution = ResolutionScope.COMPILE)
+public class CompileMappingsMojo extends AbstractMojo {
+    @Parameter( defaultValue = "${project}", readonly = true, required = true )
+    protected MavenProject project;
+
+    @Parameter( defaultValue = "${repositorySystemSession}", readonly = true )
+    RepositorySystemSession repoSession;
+
+    @Parameter(required = true, readonly = true, property = "localRepository")
+    protected ArtifactRepository localRepository;
+
+    /**
+     * Resolves artifacts referenced by license mappings.
+     */
+    @Component
+    RepositorySystem repoSystem;
+
+    /**
+     * License Mapping XML files / URLs to compile, in the same order as configured for the check
+     * and generate goals.
+     */
+    @Parameter( required = true )
+    protected String[] licenseMapping;
+
+    /**
+     * The index file to write.
+     */
+    @Parameter(
+            property = "notice.licenseMappingIndex",
+            defaultValue = "${project.build.directory}/license-mappings.idx")
+    protected File licenseMappingIndex;
+
+    /**
+     * Cache HTTP(S) license mappings on disk, see the check and generate goals.
+     */
+    @Parameter( property = "notice.urlCache", defaultValue = "true")
+    protected boolean urlCache = true;
+
+    /**
+     * Directory for the URL cache. Defaults to .cache/notice-maven-plugin/urls in the local
+     * repository.
+     */
+    @Parameter( property = "notice.urlCacheDirectory")
+    protected File urlCacheDirectory;
+
+    /**
+     * Seconds a cached URL is used without revalidating it, by default it is revalidated in every
+     * build.
+     */
+    @Parameter( property = "notice.urlCacheMaxAge", defaultValue = "0")
+    protected long urlCacheMaxAge = 0;
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final Log logger = this.getLog();
+
+        final ResourceFinder finder = this.getResourceFinder();
+        try {
+            this.compileMappings(logger, finder);
+        } finally {
+            IOUtils.closeQuietly(finder);
+        }
+    }
+
+    private void compileMappings(Log logger, ResourceFinder finder)
+            throws MojoExecutionException, MojoFailureException {
+        final LicenseLookupHelper licenseLookupHelper = new LicenseLookupHelper(logger, finder);
+
+        // Checksum first so a mapping file that changes while compiling is seen as stale later
+        final List<String> checksums =
+                licenseLookupHelper.getLicenseLookupChecksums(this.licenseMapping);
+        final MergedLicenseMappings mappings =
+                licenseLookupHelper.loadMergedMappings(this.licenseMapping);
+
+        // The index is sorted and searched by groupId and artifactId, both are required
+        for (final List<ArtifactLicense> artifactLicenses : mappings.getArtifactLicenses()) {
+            final ArtifactLicense artifactLicense = artifactLicenses.get(0);
+            if (StringUtils.isBlank(artifactLicense.getGroupId())
+                    || StringUtils.isBlank(artifactLicense.getArtifactId())) {
+                throw new MojoFailureException(
+                        "License mapping for '"
+                                + artifactLicense.getName()
+                                + "' under '"
+                                + artifactLicense.getLicense()
+                                + "' needs both a groupId and an artifactId to be compiled");
+            }
+        }
+
+        // Validate every mapping compiles so lookups against the index can't fail
+        mappings.compile();
+
+        try {
+            LicenseMappingIndex.write(
+                    this.licenseMappingIndex,
+                    Arrays.asList(this.licenseMapping),
+                    checksums,
+                    mappings);
+        } catch (IOException e) {
+            throw new MojoFailureException(
+                    "Failed to write license mapping index to: " + this.licenseMappingIndex, e);
+        }
+
+        logger.info(
+                "Compiled "
+                        + mappings.getArtifactLicenses().size()
+                        + " mapped artifacts into "
+                        + this.licenseMappingIndex);
+    }
+
+    protected ResourceFinder getResourceFinder() {
+        final UrlResourceCache urlResourceCache =
+                this.urlCache
+                        ? AbstractNoticeMojo.createUrlResourceCache(
+                                this.getLog(),
+                                this.urlCacheDirectory,
+                                this.urlCacheMaxAge,
+                                this.localRepository,
+                                this.repoSession)
+                        : null;
+        return AbstractNoticeMojo.createResourceFinder(
+                this.project, this.repoSystem, this.repoSession, urlResourceCache);
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.util.Set;
+
+/**
+ * The includeScopes, excludeScopes and excludeOptional configuration of a NOTICE. Besides
+ * checking single dependencies it can tell if any transitive dependency of a dependency could be
+ * included, letting excluded optional subtrees of the dependency graph be skipped.
+ */
+class DependencyFilter {
+    private final Set<String> includeScopes;
+    private final Set<String> excludeScopes;
+    private final boolean excludeOptional;
+
+    DependencyFilter(Set<String> includeScopes, Set<String> excludeScopes, boolean excludeOptional) {
+        this.includeScopes = includeScopes;
+        this.excludeScopes = excludeScopes;
+        this.excludeOptional = excludeOptional;
+    }
+
+    /**
+     * @param scope The dependency's scope, may be null
+     * @param optional If the dependency or any dependency it was reached through is optional
+     * @return true if the dependency should be listed in the NOTICE
+     */
+    public boolean isIncluded(String scope, boolean optional) {
+        if (this.excludeOptional && optional) {
+            return false;
+        }
+        return this.isScopeIncluded(scope);
+    }
+
+    /**
+     * Only optional status is inherited by the transitive dependencies of a dependency. Their
+     * scopes are not, conflict resolution keeps the nearest node with the widest scope of all its
+     * paths so a compile dependency can be reached through a test, provided or runtime one.
+     *
+     * @param optional If the dependency or any dependency it was reached through is optional
+     * @return false if no transitive dependency of the dependency can be listed in the NOTICE
+     */
+    public boolean mayIncludeDescendants(boolean optional) {
+        return !(this.excludeOptional && optional);
+    }
+
+    private boolean isScopeIncluded(String scope) {
+        if (!this.includeScopes.isEmpty()) {
+            if (scope == null || !this.includeScopes.contains(scope)) {
+                return false;
+            }
+        }
+        if (!this.excludeScopes.isEmpty()) {
+            if (scope != null && this.excludeScopes.contains(scope)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -18,12 +18,24 @@
  */
 package org.jasig.maven.notice;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.jasig.maven.notice.util.Checksums;
 import org.jasig.maven.notice.util.ResourceFinder;
 
 /**
@@ -36,9 +48,15 @@ import org.jasig.maven.notice.util.ResourceFinder;
 public class GenerateNoticeMojo extends AbstractNoticeMojo {
 
     @Override
-    protected void handleNotice(ResourceFinder finder, String noticeContents)
+    protected boolean isLockFileWritten() {
+        return true;
+    }
+
+    @Override
+    protected void handleNotice(
+            ResourceFinder finder, MavenProject noticeProject, NoticeContents noticeContents)
             throws MojoFailureException {
-        final File outputFile = getNoticeOutputFile();
+        final File outputFile = getNoticeOutputFile(noticeProject);
         try {
             FileUtils.forceMkdir(outputFile.getParentFile());
         } catch (IOException e) {
@@ -48,9 +66,73 @@ public class GenerateNoticeMojo extends AbstractNoticeMojo {
 
         // Write out the generated notice file
         try {
-            FileUtils.writeStringToFile(outputFile, noticeContents, this.encoding);
+            if (!writeNotice(outputFile, noticeContents, this.encoding)) {
+                this.getLog().info("NOTICE file is up to date: " + outputFile);
+            }
         } catch (IOException e) {
             throw new MojoFailureException("Failed to write NOTICE File to: " + outputFile, e);
         }
     }
+
+    /**
+     * Stream the NOTICE contents to a file. The file is left untouched if its content hash
+     * matches, otherwise the contents are written to a temporary file in the same directory which
+     * is then moved into place atomically, so readers never see a partial file and unchanged
+     * files keep their modification time.
+     *
+     * @param file The file to write
+     * @param noticeContents The contents to write
+     * @param encoding The file encoding
+     * @return true if the file was written, false if it was unchanged
+     * @throws IOException If the file can't be written
+     */
+    static boolean writeNotice(File file, NoticeContents noticeContents, String encoding)
+            throws IOException {
+        final Charset charset = Charset.forName(encoding);
+
+        if (file.isFile()) {
+            final MessageDigest digest = Checksums.getDigest("SHA-256");
+            final Writer digestWriter =
+                    new BufferedWriter(
+                            new OutputStreamWriter(
+                                    new DigestOutputStream(
+                                            NullOutputStream.NULL_OUTPUT_STREAM, digest),
+                                    charset));
+            try {
+                noticeContents.writeTo(digestWriter);
+            } finally {
+                digestWriter.close();
+            }
+            if (Checksums.toHex(digest.digest()).equals(Checksums.sha256(file))) {
+                return false;
+            }
+        }
+
+        final File tempFile =
+                File.createTempFile("." + file.getName() + "-", ".tmp", file.getParentFile());
+        try {
+            final Writer writer =
+                    new BufferedWriter(
+                            new OutputStreamWriter(
+                                    Files.newOutputStream(tempFile.toPath()), charset));
+            try {
+                noticeContents.writeTo(writer);
+            } finally {
+                writer.close();
+            }
+
+            try {
+                Files.move(
+                        tempFile.toPath(),
+                        file.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+        return true;
+    }
 }
@@ -63,7 +63,7 @@ public final class LicenseLookupContext {
             final Marshaller marshaller = jaxbContext.createMarshaller();
             marshaller.setProperty(
                     "jaxb.schemaLocation",
-                    "https://source.jasig.org/schemas/maven-notice-plugin/license-lookup https://source.jasig.org/schemas/maven-notice-plugin/license-lookup/license-lookup-v1.0.xsd");
+                    "https://source.jasig.org/schemas/maven-notice-plugin/license-lookup https://source.jasig.org/schemas/maven-notice-plugin/license-lookup/license-lookup-v1.1.xsd");
             marshaller.setProperty("jaxb.formatted.output", true);
             return marshaller;
         } catch (JAXBException e) {
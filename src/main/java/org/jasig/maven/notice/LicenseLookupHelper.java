@@ -18,29 +18,31 @@
  */
 package org.jasig.maven.notice;
 
+import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.regex.Pattern;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import org.apache.commons.collections.map.LRUMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.xml.stream.XMLStreamException;
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.artifact.versioning.ArtifactVersion;
-import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.jasig.maven.notice.lookup.ArtifactLicense;
-import org.jasig.maven.notice.lookup.LicenseLookup;
 import org.jasig.maven.notice.lookup.MappedVersion;
-import org.jasig.maven.notice.lookup.VersionType;
+import org.jasig.maven.notice.util.Checksums;
+import org.jasig.maven.notice.util.ConcurrentLoadingCache;
+import org.jasig.maven.notice.util.MemoryWeights;
 import org.jasig.maven.notice.util.ResourceFinder;
 
 /**
@@ -51,185 +53,255 @@ import org.jasig.maven.notice.util.ResourceFinder;
  * @version $Revision$
  */
 public class LicenseLookupHelper {
-    /** Cache parse results for the 20 most recently used LicenseLookup files */
-    @SuppressWarnings("unchecked")
-    private static final Map<String, LicenseLookup> LICENSE_LOOKUP_CACHE = new LRUMap(20);
+    /** Default number of parsed license lookup files to cache */
+    public static final int DEFAULT_LICENSE_LOOKUP_CACHE_SIZE = 20;
 
-    private static final ReadWriteLock LICENSE_LOOKUP_CACHE_LOCK = new ReentrantReadWriteLock();
+    /** Default estimated memory, in bytes, used by each of the license lookup caches */
+    public static final long DEFAULT_LICENSE_LOOKUP_CACHE_WEIGHT = 64L * 1024 * 1024;
+
+    /**
+     * Cache parse results for the most recently used license lookup files. The cache lives as long
+     * as the plugin's class loader, which in a build daemon spans many builds, so it is bounded by
+     * the estimated weight of the mappings and only holds them softly.
+     */
+    private static final ConcurrentLoadingCache<String, List<ArtifactLicense>>
+            LICENSE_LOOKUP_CACHE =
+                    new ConcurrentLoadingCache<String, List<ArtifactLicense>>(
+                            DEFAULT_LICENSE_LOOKUP_CACHE_SIZE,
+                            DEFAULT_LICENSE_LOOKUP_CACHE_WEIGHT,
+                            new ConcurrentLoadingCache.Weigher<List<ArtifactLicense>>() {
+                                public long weigh(List<ArtifactLicense> artifactLicenses) {
+                                    long weight = MemoryWeights.OBJECT;
+                                    for (final ArtifactLicense artifactLicense : artifactLicenses) {
+                                        weight +=
+                                                MemoryWeights.REFERENCE
+                                                        + estimateWeight(artifactLicense);
+                                    }
+                                    return weight;
+                                }
+                            },
+                            true);
+
+    /**
+     * Cache compiled mappings by the ordered list of license lookup file URLs, modules with the
+     * same licenseMapping configuration share one immutable index
+     */
+    private static final ConcurrentLoadingCache<
+                    List<String>, Map<String, Map<String, ArtifactLicenseMatcher>>>
+            MERGED_LICENSE_LOOKUP_CACHE =
+                    new ConcurrentLoadingCache<
+                            List<String>, Map<String, Map<String, ArtifactLicenseMatcher>>>(
+                            8,
+                            DEFAULT_LICENSE_LOOKUP_CACHE_WEIGHT,
+                            new ConcurrentLoadingCache.Weigher<
+                                    Map<String, Map<String, ArtifactLicenseMatcher>>>() {
+                                public long weigh(
+                                        Map<String, Map<String, ArtifactLicenseMatcher>> matchers) {
+                                    return estimateWeight(matchers);
+                                }
+                            },
+                            true);
+
+    private static final LicenseLookupReader LICENSE_LOOKUP_READER = new LicenseLookupReader();
+
+    /** Compiled mappings indexed by groupId then artifactId, null if using a mapping index */
+    private final Map<String, Map<String, ArtifactLicenseMatcher>> licenseMatchers;
+
+    /** Compiled mapping index, null if the mappings were loaded from XML */
+    private final LicenseMappingIndex licenseMappingIndex;
 
-    private final Map<String, Map<List<MappedVersion>, ArtifactLicense>> mergedLicenseLookup =
-            new LinkedHashMap<String, Map<List<MappedVersion>, ArtifactLicense>>();
     private final Log logger;
     private final ResourceFinder resourceFinder;
 
+    /** Largest cache size configured so far, 0 until one is configured */
+    private static int configuredCacheSize;
+
+    /** Largest cache weight configured so far, 0 until one is configured */
+    private static long configuredCacheWeight;
+
+    /**
+     * The caches are shared by every execution in the JVM, including parallel modules and the
+     * builds of a build daemon, so the largest size configured by any of them applies. Smaller
+     * sizes than one configured before are ignored.
+     *
+     * @param capacity The number of parsed license lookup files to cache
+     */
+    public static synchronized void setLicenseLookupCacheSize(int capacity) {
+        if (capacity > configuredCacheSize) {
+            LICENSE_LOOKUP_CACHE.setCapacity(capacity);
+            configuredCacheSize = capacity;
+        }
+    }
+
+    /**
+     * The caches are shared by every execution in the JVM, so the largest weight configured by any
+     * of them applies. Smaller weights than one configured before are ignored.
+     *
+     * @param maxWeight The estimated memory, in bytes, each of the license lookup caches may use
+     */
+    public static synchronized void setLicenseLookupCacheWeight(long maxWeight) {
+        if (maxWeight > configuredCacheWeight) {
+            LICENSE_LOOKUP_CACHE.setMaxWeight(maxWeight);
+            MERGED_LICENSE_LOOKUP_CACHE.setMaxWeight(maxWeight);
+            configuredCacheWeight = maxWeight;
+        }
+    }
+
+    /** @return Usage statistics of the parsed license lookup file cache */
+    public static ConcurrentLoadingCache.Statistics getLicenseLookupCacheStatistics() {
+        return LICENSE_LOOKUP_CACHE.getStatistics();
+    }
+
     public LicenseLookupHelper(
             Log logger, ResourceFinder resourceFinder, String[] licenseLookupFiles)
             throws MojoFailureException {
+        this(logger, resourceFinder, licenseLookupFiles, null);
+    }
+
+    /**
+     * @param licenseMappingIndexFile Optional index written by the compile-mappings goal, used
+     *     instead of parsing the license lookup files if it was compiled from their current content
+     */
+    public LicenseLookupHelper(
+            Log logger,
+            ResourceFinder resourceFinder,
+            String[] licenseLookupFiles,
+            File licenseMappingIndexFile)
+            throws MojoFailureException {
         this.logger = logger;
         this.resourceFinder = resourceFinder;
 
-        final Unmarshaller unmarshaller = LicenseLookupContext.getUnmarshaller();
-
         if (licenseLookupFiles == null) {
             licenseLookupFiles = new String[0];
         }
 
-        for (final String licenseLookupFile : licenseLookupFiles) {
-            final LicenseLookup licenseLookup =
-                    this.loadLicenseLookup(unmarshaller, licenseLookupFile);
-
-            for (final ArtifactLicense artifactLicense : licenseLookup.getArtifact()) {
-                final String groupId = artifactLicense.getGroupId();
-                final String artifactId = artifactLicense.getArtifactId();
-                final String artifactKey = getArtifactKey(groupId, artifactId);
-
-                Map<List<MappedVersion>, ArtifactLicense> artifactVersions =
-                        this.mergedLicenseLookup.get(artifactKey);
-                if (artifactVersions == null) {
-                    artifactVersions = new LinkedHashMap<List<MappedVersion>, ArtifactLicense>();
-                    this.mergedLicenseLookup.put(artifactKey, artifactVersions);
-                }
-
-                final List<MappedVersion> version = artifactLicense.getVersion();
-                artifactVersions.put(version, artifactLicense);
-                this.logger.debug("Mapped " + artifactLicense + " from: " + licenseLookupFile);
+        if (licenseMappingIndexFile != null) {
+            final LicenseMappingIndex index =
+                    this.openLicenseMappingIndex(licenseMappingIndexFile, licenseLookupFiles);
+            if (index != null) {
+                this.licenseMappingIndex = index;
+                this.licenseMatchers = null;
+                return;
             }
         }
+
+        this.licenseMappingIndex = null;
+        this.licenseMatchers = this.loadLicenseMatchers(licenseLookupFiles);
     }
 
-    public ResolvedLicense lookupLicenseMapping(
-            String groupId, String artifactId, ArtifactVersion artifactVersion) {
-        // Find license info mapped to the group/artifact
-        final String artifactKey = getArtifactKey(groupId, artifactId);
-        final Map<List<MappedVersion>, ArtifactLicense> artifactVersions =
-                this.mergedLicenseLookup.get(artifactKey);
-        if (artifactVersions == null) {
-            return null;
+    /** Create a helper with no mappings, used to load and merge mappings for compilation */
+    LicenseLookupHelper(Log logger, ResourceFinder resourceFinder) {
+        this.logger = logger;
+        this.resourceFinder = resourceFinder;
+        this.licenseMappingIndex = null;
+        this.licenseMatchers = Collections.emptyMap();
+    }
+
+    /**
+     * Get the compiled mappings for the license lookup files. The compiled mappings are immutable
+     * and shared by every helper configured with the same files, as long as none of the files
+     * changed.
+     */
+    protected Map<String, Map<String, ArtifactLicenseMatcher>> loadLicenseMatchers(
+            final String[] licenseLookupFiles) throws MojoFailureException {
+        final List<URL> resolvedUrls = this.findLicenseLookupUrls(licenseLookupFiles);
+        final List<String> licenseLookupUrls = new ArrayList<String>(resolvedUrls.size());
+        final List<String> fingerprints = new ArrayList<String>(resolvedUrls.size());
+        for (final URL licenseLookupUrl : resolvedUrls) {
+            licenseLookupUrls.add(licenseLookupUrl.toString());
+            fingerprints.add(getFingerprint(licenseLookupUrl));
         }
 
-        VersionType matchType = null;
-        ArtifactLicense artifactLicense = null;
-
-        // Search the mapped versions lists for a matching version
-        for (final Entry<List<MappedVersion>, ArtifactLicense> versionEntry :
-                artifactVersions.entrySet()) {
-            final List<MappedVersion> versions = versionEntry.getKey();
-
-            // If no versions are specified for an artifact all versions match
-            if (matchType == null && versions.size() == 0) {
-                artifactLicense = versionEntry.getValue();
-            } else {
-                for (final MappedVersion version : versions) {
-                    // Use the first REGEX match found, skip checking any subsequent REGEX versions
-                    if (VersionType.REGEX == matchType && VersionType.REGEX == version.getType()) {
-                        continue;
-                    }
-
-                    final boolean matches = this.compareVersions(version, artifactVersion);
-                    if (matches) {
-                        matchType = version.getType();
-                        artifactLicense = versionEntry.getValue();
-
-                        // If a STRING match is found break the loop. First exact match is always
-                        // used
-                        if (VersionType.STRING == matchType) {
-                            break;
-                        }
-                    }
-                }
+        // Mappings that can't be checked for changes must not outlive the build
+        if (fingerprints.contains(null)) {
+            return this.loadMergedMappings(licenseLookupFiles, resolvedUrls).compile();
+        }
+
+        final AtomicBoolean loaded = new AtomicBoolean();
+        final Map<String, Map<String, ArtifactLicenseMatcher>> licenseMatchers;
+        try {
+            licenseMatchers =
+                    MERGED_LICENSE_LOOKUP_CACHE.get(
+                            licenseLookupUrls,
+                            fingerprints,
+                            new Callable<Map<String, Map<String, ArtifactLicenseMatcher>>>() {
+                                @Override
+                                public Map<String, Map<String, ArtifactLicenseMatcher>> call()
+                                        throws Exception {
+                                    loaded.set(true);
+                                    return loadMergedMappings(licenseLookupFiles, resolvedUrls)
+                                            .compile();
+                                }
+                            });
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof MojoFailureException) {
+                throw (MojoFailureException) cause;
             }
+            throw new MojoFailureException(
+                    "Failed to load license lookup files: " + licenseLookupUrls, cause);
+        }
 
-            // If a STRING match is found break the loop. First exact match is always used
-            if (VersionType.STRING == matchType) {
-                break;
+        if (!loaded.get()) {
+            for (final String licenseLookupUrl : licenseLookupUrls) {
+                this.logger.info(
+                        "Loading license lookup mappings from '" + licenseLookupUrl + "' (cached)");
             }
         }
+        return licenseMatchers;
+    }
 
-        this.logger.debug(
-                "Found "
-                        + artifactLicense
-                        + " with match "
-                        + matchType
-                        + " for: "
-                        + groupId
-                        + ":"
-                        + artifactId
-                        + ":"
-                        + artifactVersion);
-        return new ResolvedLicense(matchType, artifactLicense);
+    /** Load and merge the license lookup files in order */
+    MergedLicenseMappings loadMergedMappings(String[] licenseLookupFiles)
+            throws MojoFailureException {
+        return this.loadMergedMappings(
+                licenseLookupFiles, this.findLicenseLookupUrls(licenseLookupFiles));
     }
 
-    protected boolean compareVersions(
-            final MappedVersion version, ArtifactVersion artifactVersion) {
-        switch (version.getType()) {
-            case REGEX:
-                {
-                    final Pattern versionPattern = Pattern.compile(version.getValue());
-                    return versionPattern.matcher(artifactVersion.toString()).matches();
-                }
-            default:
-                {
-                    final ArtifactVersion mappedVersion =
-                            new DefaultArtifactVersion(version.getValue());
-                    return mappedVersion.equals(artifactVersion);
+    private MergedLicenseMappings loadMergedMappings(
+            String[] licenseLookupFiles, List<URL> licenseLookupUrls) throws MojoFailureException {
+        final MergedLicenseMappings mergedLicenseLookup = new MergedLicenseMappings();
+
+        for (int i = 0; i < licenseLookupFiles.length; i++) {
+            final String licenseLookupFile = licenseLookupFiles[i];
+            final List<ArtifactLicense> artifactLicenses =
+                    this.loadLicenseLookup(
+                            licenseLookupFile, licenseLookupUrls.get(i), mergedLicenseLookup);
+
+            if (this.logger.isDebugEnabled()) {
+                for (final ArtifactLicense artifactLicense : artifactLicenses) {
+                    this.logger.debug("Mapped " + artifactLicense + " from: " + licenseLookupFile);
                 }
+            }
         }
-    }
 
-    protected String getArtifactKey(String groupId, String artifactId) {
-        return groupId + ":" + artifactId;
+        if (this.logger.isDebugEnabled()) {
+            this.logger.debug(
+                    "License lookup cache statistics: " + getLicenseLookupCacheStatistics());
+        }
+        return mergedLicenseLookup;
     }
 
-    protected LicenseLookup loadLicenseLookup(Unmarshaller unmarshaller, String licenseLookupFile)
+    private List<URL> findLicenseLookupUrls(String[] licenseLookupFiles)
             throws MojoFailureException {
-        final URL licenseLookupUrl = resourceFinder.findResource(licenseLookupFile);
-
-        // Try loading the LicenseLookup from cache
-        final Lock readLock = LICENSE_LOOKUP_CACHE_LOCK.readLock();
-        LicenseLookup licenseLookup =
-                this.loadLicenseLookup(
-                        unmarshaller, licenseLookupFile, licenseLookupUrl, readLock, false);
-        if (licenseLookup != null) {
-            return licenseLookup;
+        final List<URL> licenseLookupUrls = new ArrayList<URL>(licenseLookupFiles.length);
+        for (final String licenseLookupFile : licenseLookupFiles) {
+            licenseLookupUrls.add(this.resourceFinder.findResource(licenseLookupFile));
         }
-
-        // Must not have been in the cache, grab the write lock and check again
-        final Lock writeLock = LICENSE_LOOKUP_CACHE_LOCK.writeLock();
-        return loadLicenseLookup(
-                unmarshaller, licenseLookupFile, licenseLookupUrl, writeLock, true);
+        return licenseLookupUrls;
     }
 
-    protected LicenseLookup loadLicenseLookup(
-            Unmarshaller unmarshaller,
-            String licenseLookupFile,
-            URL licenseLookupUrl,
-            Lock lock,
-            boolean create)
+    /**
+     * @return The SHA-1 checksum of the content of each license lookup file
+     * @throws MojoFailureException If a file could not be read
+     */
+    List<String> getLicenseLookupChecksums(String[] licenseLookupFiles)
             throws MojoFailureException {
-        final String licenseLookupKey = licenseLookupUrl.toString();
-
-        lock.lock();
-        try {
-            // Look in the cache to see if the lookup file has already been parsed
-            LicenseLookup licenseLookup = LICENSE_LOOKUP_CACHE.get(licenseLookupKey);
-            if (licenseLookup != null) {
-                logger.info(
-                        "Loading license lookup mappings from '" + licenseLookupUrl + "' (cached)");
-                return licenseLookup;
-            }
-
-            // Cache miss, check if we should parse the file, return null if not
-            if (!create) {
-                return null;
-            }
-
-            logger.info("Loading license lookup mappings from '" + licenseLookupUrl + "'");
-            InputStream lookupStream = null;
+        final List<String> checksums = new ArrayList<String>(licenseLookupFiles.length);
+        for (final String licenseLookupFile : licenseLookupFiles) {
+            final URL licenseLookupUrl = this.resourceFinder.findResource(licenseLookupFile);
             try {
-                lookupStream = licenseLookupUrl.openStream();
-                licenseLookup = (LicenseLookup) unmarshaller.unmarshal(lookupStream);
-                LICENSE_LOOKUP_CACHE.put(licenseLookupKey, licenseLookup);
-                return licenseLookup;
+                checksums.add(Checksums.sha1(licenseLookupUrl));
             } catch (IOException e) {
                 throw new MojoFailureException(
                         "Failed to read '"
@@ -238,19 +310,223 @@ public class LicenseLookupHelper {
                                 + licenseLookupUrl
                                 + "'",
                         e);
-            } catch (JAXBException e) {
-                throw new MojoFailureException(
-                        "Failed to parse '"
-                                + licenseLookupFile
-                                + "' from '"
-                                + licenseLookupUrl
-                                + "'",
-                        e);
-            } finally {
-                IOUtils.closeQuietly(lookupStream);
             }
+        }
+        return checksums;
+    }
+
+    /**
+     * Open the mapping index if it exists and was compiled from the same license lookup files with
+     * the same content, returns null if the index should not be used.
+     */
+    protected LicenseMappingIndex openLicenseMappingIndex(
+            File licenseMappingIndexFile, String[] licenseLookupFiles)
+            throws MojoFailureException {
+        if (!licenseMappingIndexFile.exists()) {
+            this.logger.warn(
+                    "License mapping index "
+                            + licenseMappingIndexFile
+                            + " does not exist, loading license lookup files instead");
+            return null;
+        }
+
+        final LicenseMappingIndex index;
+        try {
+            index = LicenseMappingIndex.open(licenseMappingIndexFile);
+        } catch (IOException e) {
+            this.logger.warn(
+                    "Failed to read license mapping index "
+                            + licenseMappingIndexFile
+                            + ", loading license lookup files instead",
+                    e);
+            return null;
+        }
+
+        if (!index.getSourceLocations().equals(Arrays.asList(licenseLookupFiles))
+                || !index.getSourceChecksums()
+                        .equals(this.getLicenseLookupChecksums(licenseLookupFiles))) {
+            this.logger.warn(
+                    "License mapping index "
+                            + licenseMappingIndexFile
+                            + " is out of date, loading license lookup files instead");
+            return null;
+        }
+
+        this.logger.info(
+                "Loading license lookup mappings from index '" + licenseMappingIndexFile + "'");
+        return index;
+    }
+
+    public ResolvedLicense lookupLicenseMapping(
+            String groupId, String artifactId, ArtifactVersion artifactVersion) {
+        // Find license info mapped to the group/artifact
+        final ArtifactLicenseMatcher licenseMatcher;
+        if (this.licenseMappingIndex != null) {
+            licenseMatcher = this.licenseMappingIndex.getLicenseMatcher(groupId, artifactId);
+        } else {
+            final Map<String, ArtifactLicenseMatcher> artifactMatchers =
+                    this.licenseMatchers.get(groupId);
+            licenseMatcher = artifactMatchers != null ? artifactMatchers.get(artifactId) : null;
+        }
+        if (licenseMatcher == null) {
+            return null;
+        }
+
+        final ResolvedLicense resolvedLicense = licenseMatcher.match(artifactVersion);
+
+        if (this.logger.isDebugEnabled()) {
+            this.logger.debug(
+                    "Found "
+                            + resolvedLicense.getArtifactLicense()
+                            + " with match "
+                            + resolvedLicense.getVersionType()
+                            + " for: "
+                            + groupId
+                            + ":"
+                            + artifactId
+                            + ":"
+                            + artifactVersion);
+        }
+        return resolvedLicense;
+    }
+
+    /**
+     * Load the license lookup file, adding its mappings to the merged mappings
+     *
+     * @return The mappings loaded from the file
+     */
+    protected List<ArtifactLicense> loadLicenseLookup(
+            final String licenseLookupFile,
+            final URL licenseLookupUrl,
+            final MergedLicenseMappings mergedLicenseLookup)
+            throws MojoFailureException {
+        // Files that can't be checked for changes must not outlive the build
+        final String fingerprint = getFingerprint(licenseLookupUrl);
+        if (fingerprint == null) {
+            return this.readLicenseLookup(licenseLookupFile, licenseLookupUrl, mergedLicenseLookup);
+        }
+
+        // Only the thread that loads the file streams it into the merged mappings
+        final AtomicBoolean loaded = new AtomicBoolean();
+        final List<ArtifactLicense> artifactLicenses;
+        try {
+            artifactLicenses =
+                    LICENSE_LOOKUP_CACHE.get(
+                            licenseLookupUrl.toString(),
+                            fingerprint,
+                            new Callable<List<ArtifactLicense>>() {
+                                @Override
+                                public List<ArtifactLicense> call() throws Exception {
+                                    loaded.set(true);
+                                    return readLicenseLookup(
+                                            licenseLookupFile,
+                                            licenseLookupUrl,
+                                            mergedLicenseLookup);
+                                }
+                            });
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof MojoFailureException) {
+                throw (MojoFailureException) cause;
+            }
+            throw new MojoFailureException(
+                    "Failed to load '" + licenseLookupFile + "' from '" + licenseLookupUrl + "'",
+                    cause);
+        }
+
+        if (!loaded.get()) {
+            logger.info("Loading license lookup mappings from '" + licenseLookupUrl + "' (cached)");
+            for (final ArtifactLicense artifactLicense : artifactLicenses) {
+                mergedLicenseLookup.add(artifactLicense);
+            }
+        }
+        return artifactLicenses;
+    }
+
+    protected List<ArtifactLicense> readLicenseLookup(
+            String licenseLookupFile,
+            URL licenseLookupUrl,
+            MergedLicenseMappings mergedLicenseLookup)
+            throws MojoFailureException {
+        logger.info("Loading license lookup mappings from '" + licenseLookupUrl + "'");
+        InputStream lookupStream = null;
+        try {
+            lookupStream = new BufferedInputStream(licenseLookupUrl.openStream());
+            return Collections.unmodifiableList(
+                    LICENSE_LOOKUP_READER.read(lookupStream, mergedLicenseLookup));
+        } catch (IOException e) {
+            throw new MojoFailureException(
+                    "Failed to read '" + licenseLookupFile + "' from '" + licenseLookupUrl + "'",
+                    e);
+        } catch (XMLStreamException e) {
+            throw new MojoFailureException(
+                    "Failed to parse '" + licenseLookupFile + "' from '" + licenseLookupUrl + "'",
+                    e);
         } finally {
-            lock.unlock();
+            IOUtils.closeQuietly(lookupStream);
+        }
+    }
+
+    /** @return The estimated heap used by the mapping */
+    static long estimateWeight(ArtifactLicense artifactLicense) {
+        long weight =
+                MemoryWeights.OBJECT * 2
+                        + MemoryWeights.of(artifactLicense.getGroupId())
+                        + MemoryWeights.of(artifactLicense.getArtifactId())
+                        + MemoryWeights.of(artifactLicense.getName())
+                        + MemoryWeights.of(artifactLicense.getLicense());
+        for (final MappedVersion version : artifactLicense.getVersion()) {
+            weight +=
+                    MemoryWeights.OBJECT
+                            + MemoryWeights.REFERENCE
+                            + MemoryWeights.of(version.getValue());
+        }
+        return weight;
+    }
+
+    /** @return The estimated heap used by the compiled mappings */
+    static long estimateWeight(Map<String, Map<String, ArtifactLicenseMatcher>> licenseMatchers) {
+        long weight = MemoryWeights.OBJECT;
+        for (final Map.Entry<String, Map<String, ArtifactLicenseMatcher>> groupEntry :
+                licenseMatchers.entrySet()) {
+            weight += MemoryWeights.MAP_ENTRY + MemoryWeights.of(groupEntry.getKey());
+            for (final Map.Entry<String, ArtifactLicenseMatcher> artifactEntry :
+                    groupEntry.getValue().entrySet()) {
+                weight +=
+                        MemoryWeights.MAP_ENTRY
+                                + MemoryWeights.of(artifactEntry.getKey())
+                                + artifactEntry.getValue().estimateWeight();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Fingerprint of the content at a URL, the last modified time and size of the backing file for
+     * file and jar URLs. Returns null for other URLs, which are read again by every build rather
+     * than cached since changes to them can't be detected.
+     */
+    static String getFingerprint(URL url) {
+        File file = null;
+        try {
+            if ("file".equals(url.getProtocol())) {
+                file = new File(url.toURI());
+            } else if ("jar".equals(url.getProtocol())) {
+                final String path = url.getPath();
+                final int separator = path.indexOf("!/");
+                if (separator > 0 && path.startsWith("file:")) {
+                    file = new File(new URI(path.substring(0, separator)));
+                }
+            }
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (file == null) {
+            return null;
         }
+        return file.lastModified() + ":" + file.length();
     }
 }
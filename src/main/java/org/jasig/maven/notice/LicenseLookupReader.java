@@ -0,0 +1,119 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.jasig.maven.notice.lookup.ArtifactLicense;
+import org.jasig.maven.notice.lookup.MappedVersion;
+import org.jasig.maven.notice.lookup.VersionType;
+
+/**
+ * Stream parses license-lookup XML files, adding each mapped artifact to the merged mappings as it
+ * is read. Avoids creating a JAXB context and unmarshalling an intermediate document tree.
+ */
+class LicenseLookupReader {
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    static {
+        XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * @param lookupStream The license-lookup XML to read, not closed
+     * @param mergedLicenseLookup Mappings to add each artifact to as it is read
+     * @return The artifacts read, in document order
+     * @throws XMLStreamException If the XML is malformed or has an unknown version type
+     */
+    public List<ArtifactLicense> read(
+            InputStream lookupStream, MergedLicenseMappings mergedLicenseLookup)
+            throws XMLStreamException {
+        final List<ArtifactLicense> artifactLicenses = new ArrayList<ArtifactLicense>();
+
+        final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(lookupStream);
+        try {
+            ArtifactLicense artifactLicense = null;
+            int depth = 0;
+            while (reader.hasNext()) {
+                final int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    final String element = reader.getLocalName();
+                    if (depth == 2 && "artifact".equals(element)) {
+                        artifactLicense = new ArtifactLicense();
+                    } else if (depth == 3 && artifactLicense != null) {
+                        if (this.readField(reader, element, artifactLicense)) {
+                            // getElementText consumed the end element
+                            depth--;
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == 2 && artifactLicense != null) {
+                        mergedLicenseLookup.add(artifactLicense);
+                        artifactLicenses.add(artifactLicense);
+                        artifactLicense = null;
+                    }
+                    depth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return artifactLicenses;
+    }
+
+    /** @return true if the element was a known field and has been read through its end */
+    private boolean readField(
+            XMLStreamReader reader, String element, ArtifactLicense artifactLicense)
+            throws XMLStreamException {
+        if ("groupId".equals(element)) {
+            artifactLicense.setGroupId(reader.getElementText());
+        } else if ("artifactId".equals(element)) {
+            artifactLicense.setArtifactId(reader.getElementText());
+        } else if ("name".equals(element)) {
+            artifactLicense.setName(reader.getElementText());
+        } else if ("license".equals(element)) {
+            artifactLicense.setLicense(reader.getElementText());
+        } else if ("version".equals(element)) {
+            final MappedVersion version = new MappedVersion();
+            final String type = reader.getAttributeValue(null, "type");
+            if (type != null) {
+                try {
+                    version.setType(VersionType.fromValue(type.trim()));
+                } catch (IllegalArgumentException e) {
+                    throw new XMLStreamException(
+                            "Unknown version type '" + type + "'", reader.getLocation(), e);
+                }
+            }
+            version.setValue(reader.getElementText());
+            artifactLicense.getVersion().add(version);
+        } else {
+            return false;
+        }
+        return true;
+    }
+}
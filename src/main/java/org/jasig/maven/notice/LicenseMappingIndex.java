@@ -0,0 +1,421 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoFailureException;
+import org.jasig.maven.notice.lookup.ArtifactLicense;
+import org.jasig.maven.notice.lookup.MappedVersion;
+import org.jasig.maven.notice.lookup.VersionType;
+
+/**
+ * A compiled, read-only index of merged license mappings written by the compile-mappings goal.
+ * The index file is memory mapped and artifacts are located with a binary search over a sorted
+ * table of fixed size records, mappings are only materialized for artifacts that are looked up.
+ *
+ * <p>File layout, all integers are big-endian:
+ *
+ * <pre>
+ * int magic, int format version
+ * int source count, (string location, string SHA-1 checksum) per source
+ * int artifact count, int table offset, int entries offset, int strings offset
+ * table:   (int groupId, int artifactId, int entries) per artifact, sorted by UTF-8 bytes
+ * entries: int mapping count, (int name, int license, int version count,
+ *          (byte type, int value) per version) per mapping
+ * strings: (int length, UTF-8 bytes) per unique string
+ * </pre>
+ *
+ * String and entry references are relative to the start of their section, -1 is a null string.
+ */
+final class LicenseMappingIndex {
+    private static final int MAGIC = 0x4E4C4D49;
+    private static final int FORMAT_VERSION = 1;
+    private static final int ARTIFACT_RECORD_SIZE = 12;
+    private static final int NULL_STRING = -1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final VersionType[] VERSION_TYPES = {
+        VersionType.STRING, VersionType.REGEX, VersionType.RANGE
+    };
+
+    private final ByteBuffer buffer;
+    private final List<String> sourceLocations;
+    private final List<String> sourceChecksums;
+    private final int artifactCount;
+    private final int tableOffset;
+    private final int entriesOffset;
+    private final int stringsOffset;
+    private final ConcurrentMap<Integer, ArtifactLicenseMatcher> licenseMatchers =
+            new ConcurrentHashMap<Integer, ArtifactLicenseMatcher>();
+
+    private LicenseMappingIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        int position = 0;
+        if (buffer.getInt(position) != MAGIC) {
+            throw new IOException("Not a license mapping index");
+        }
+        position += 4;
+        final int formatVersion = buffer.getInt(position);
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported license mapping index version: " + formatVersion);
+        }
+        position += 4;
+
+        final int sourceCount = buffer.getInt(position);
+        position += 4;
+        final List<String> locations = new ArrayList<String>(sourceCount);
+        final List<String> checksums = new ArrayList<String>(sourceCount);
+        for (int i = 0; i < sourceCount; i++) {
+            final String location = this.readString(position);
+            position += 4 + buffer.getInt(position);
+            final String checksum = this.readString(position);
+            position += 4 + buffer.getInt(position);
+            locations.add(location);
+            checksums.add(checksum);
+        }
+        this.sourceLocations = Collections.unmodifiableList(locations);
+        this.sourceChecksums = Collections.unmodifiableList(checksums);
+
+        this.artifactCount = buffer.getInt(position);
+        this.tableOffset = buffer.getInt(position + 4);
+        this.entriesOffset = buffer.getInt(position + 8);
+        this.stringsOffset = buffer.getInt(position + 12);
+    }
+
+    /**
+     * Memory map an existing index file
+     *
+     * @param indexFile The index file written by {@link #write}
+     * @return The opened index
+     * @throws IOException If the file cannot be read or is not a supported index
+     */
+    public static LicenseMappingIndex open(File indexFile) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+        try {
+            final FileChannel channel = file.getChannel();
+            final MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LicenseMappingIndex(buffer);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated license mapping index: " + indexFile, e);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Write the merged mappings to an index file. The index is written to a temporary file in the
+     * same directory which is then moved into place, other builds may have the existing index
+     * memory mapped and truncating it under them would crash them.
+     *
+     * @param indexFile The file to write
+     * @param sourceLocations The configured license mapping locations the index was built from
+     * @param sourceChecksums The SHA-1 checksums of the license mapping contents
+     * @param mappings The merged mappings
+     * @throws IOException If the index could not be written
+     */
+    public static void write(
+            File indexFile,
+            List<String> sourceLocations,
+            List<String> sourceChecksums,
+            MergedLicenseMappings mappings)
+            throws IOException {
+        final List<List<ArtifactLicense>> artifacts =
+                new ArrayList<List<ArtifactLicense>>(mappings.getArtifactLicenses());
+        Collections.sort(artifacts, ArtifactKeyComparator.INSTANCE);
+
+        final StringTable strings = new StringTable();
+        final ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+        final DataOutputStream table = new DataOutputStream(tableBytes);
+        final ByteArrayOutputStream entriesBytes = new ByteArrayOutputStream();
+        final DataOutputStream entries = new DataOutputStream(entriesBytes);
+
+        for (final List<ArtifactLicense> artifactLicenses : artifacts) {
+            final ArtifactLicense first = artifactLicenses.get(0);
+            table.writeInt(strings.add(first.getGroupId()));
+            table.writeInt(strings.add(first.getArtifactId()));
+            table.writeInt(entries.size());
+
+            entries.writeInt(artifactLicenses.size());
+            for (final ArtifactLicense artifactLicense : artifactLicenses) {
+                entries.writeInt(strings.add(artifactLicense.getName()));
+                entries.writeInt(strings.add(artifactLicense.getLicense()));
+
+                final List<MappedVersion> versions = artifactLicense.getVersion();
+                entries.writeInt(versions.size());
+                for (final MappedVersion version : versions) {
+                    entries.writeByte(Arrays.asList(VERSION_TYPES).indexOf(version.getType()));
+                    entries.writeInt(strings.add(version.getValue()));
+                }
+            }
+        }
+        table.flush();
+        entries.flush();
+
+        final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        final DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(MAGIC);
+        header.writeInt(FORMAT_VERSION);
+        header.writeInt(sourceLocations.size());
+        for (int i = 0; i < sourceLocations.size(); i++) {
+            writeString(header, sourceLocations.get(i));
+            writeString(header, sourceChecksums.get(i));
+        }
+
+        final int tableOffset = header.size() + 16;
+        final int entriesOffset = tableOffset + tableBytes.size();
+        final int stringsOffset = entriesOffset + entriesBytes.size();
+        header.writeInt(artifacts.size());
+        header.writeInt(tableOffset);
+        header.writeInt(entriesOffset);
+        header.writeInt(stringsOffset);
+        header.flush();
+
+        final ByteArrayOutputStream index = new ByteArrayOutputStream(stringsOffset);
+        headerBytes.writeTo(index);
+        tableBytes.writeTo(index);
+        entriesBytes.writeTo(index);
+        strings.writeTo(index);
+
+        final File indexDirectory = indexFile.getAbsoluteFile().getParentFile();
+        FileUtils.forceMkdir(indexDirectory);
+        final File tempFile =
+                File.createTempFile("." + indexFile.getName() + "-", ".tmp", indexDirectory);
+        try {
+            FileUtils.writeByteArrayToFile(tempFile, index.toByteArray());
+            try {
+                Files.move(
+                        tempFile.toPath(),
+                        indexFile.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(
+                        tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /** @return The configured license mapping locations the index was built from */
+    public List<String> getSourceLocations() {
+        return this.sourceLocations;
+    }
+
+    /** @return The SHA-1 checksums of the license mappings the index was built from */
+    public List<String> getSourceChecksums() {
+        return this.sourceChecksums;
+    }
+
+    /**
+     * @return The compiled mappings of the artifact, null if the artifact has no mappings
+     * @throws IllegalStateException If a mapping contains an invalid version range, the
+     *     compile-mappings goal validates ranges so this only happens for a damaged index
+     */
+    public ArtifactLicenseMatcher getLicenseMatcher(String groupId, String artifactId) {
+        final int record = this.findArtifact(groupId.getBytes(UTF_8), artifactId.getBytes(UTF_8));
+        if (record < 0) {
+            return null;
+        }
+
+        final Integer key = record;
+        ArtifactLicenseMatcher licenseMatcher = this.licenseMatchers.get(key);
+        if (licenseMatcher == null) {
+            try {
+                licenseMatcher =
+                        MergedLicenseMappings.compile(this.readArtifactLicenses(record));
+            } catch (MojoFailureException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+            final ArtifactLicenseMatcher existing =
+                    this.licenseMatchers.putIfAbsent(key, licenseMatcher);
+            if (existing != null) {
+                licenseMatcher = existing;
+            }
+        }
+        return licenseMatcher;
+    }
+
+    /** Binary search the artifact table, returns the record index or -1 if not found */
+    private int findArtifact(byte[] groupId, byte[] artifactId) {
+        int low = 0;
+        int high = this.artifactCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int recordOffset = this.tableOffset + mid * ARTIFACT_RECORD_SIZE;
+
+            int cmp = this.compareString(this.buffer.getInt(recordOffset), groupId);
+            if (cmp == 0) {
+                cmp = this.compareString(this.buffer.getInt(recordOffset + 4), artifactId);
+            }
+
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /** Compare the stored string to the UTF-8 key in place, without decoding it */
+    private int compareString(int stringRef, byte[] key) {
+        final int position = this.stringsOffset + stringRef;
+        final int length = this.buffer.getInt(position);
+        final int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            final int cmp = (this.buffer.get(position + 4 + i) & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    private List<ArtifactLicense> readArtifactLicenses(int record) {
+        final int recordOffset = this.tableOffset + record * ARTIFACT_RECORD_SIZE;
+        final String groupId = this.readStringRef(this.buffer.getInt(recordOffset));
+        final String artifactId = this.readStringRef(this.buffer.getInt(recordOffset + 4));
+
+        int position = this.entriesOffset + this.buffer.getInt(recordOffset + 8);
+        final int mappingCount = this.buffer.getInt(position);
+        position += 4;
+
+        final List<ArtifactLicense> artifactLicenses = new ArrayList<ArtifactLicense>(mappingCount);
+        for (int i = 0; i < mappingCount; i++) {
+            final ArtifactLicense artifactLicense = new ArtifactLicense();
+            artifactLicense.setGroupId(groupId);
+            artifactLicense.setArtifactId(artifactId);
+            artifactLicense.setName(this.readStringRef(this.buffer.getInt(position)));
+            artifactLicense.setLicense(this.readStringRef(this.buffer.getInt(position + 4)));
+            final int versionCount = this.buffer.getInt(position + 8);
+            position += 12;
+
+            for (int v = 0; v < versionCount; v++) {
+                final MappedVersion version = new MappedVersion();
+                version.setType(VERSION_TYPES[this.buffer.get(position)]);
+                version.setValue(this.readStringRef(this.buffer.getInt(position + 1)));
+                artifactLicense.getVersion().add(version);
+                position += 5;
+            }
+
+            artifactLicenses.add(artifactLicense);
+        }
+        return artifactLicenses;
+    }
+
+    private String readStringRef(int stringRef) {
+        if (stringRef == NULL_STRING) {
+            return null;
+        }
+        return this.readString(this.stringsOffset + stringRef);
+    }
+
+    private String readString(int position) {
+        final byte[] bytes = new byte[this.buffer.getInt(position)];
+        final ByteBuffer view = this.buffer.duplicate();
+        view.position(position + 4);
+        view.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        final byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Unique strings and their offsets in the string section */
+    private static final class StringTable {
+        private final Map<String, Integer> offsets = new HashMap<String, Integer>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(this.bytes);
+
+        public int add(String value) throws IOException {
+            if (value == null) {
+                return NULL_STRING;
+            }
+            Integer offset = this.offsets.get(value);
+            if (offset == null) {
+                offset = this.out.size();
+                writeString(this.out, value);
+                this.offsets.put(value, offset);
+            }
+            return offset;
+        }
+
+        public void writeTo(ByteArrayOutputStream index) throws IOException {
+            this.out.flush();
+            this.bytes.writeTo(index);
+        }
+    }
+
+    /** Orders artifacts by the unsigned UTF-8 bytes of their groupId then artifactId */
+    private static final class ArtifactKeyComparator implements Comparator<List<ArtifactLicense>> {
+        public static final ArtifactKeyComparator INSTANCE = new ArtifactKeyComparator();
+
+        @Override
+        public int compare(List<ArtifactLicense> o1, List<ArtifactLicense> o2) {
+            final ArtifactLicense a1 = o1.get(0);
+            final ArtifactLicense a2 = o2.get(0);
+            final int cmp = compareBytes(a1.getGroupId(), a2.getGroupId());
+            if (cmp != 0) {
+                return cmp;
+            }
+            return compareBytes(a1.getArtifactId(), a2.getArtifactId());
+        }
+
+        private static int compareBytes(String s1, String s2) {
+            final byte[] b1 = s1.getBytes(UTF_8);
+            final byte[] b2 = s2.getBytes(UTF_8);
+            final int common = Math.min(b1.length, b2.length);
+            for (int i = 0; i < common; i++) {
+                final int cmp = (b1[i] & 0xFF) - (b2[i] & 0xFF);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return b1.length - b2.length;
+        }
+    }
+}
@@ -18,18 +18,25 @@
  */
 package org.jasig.maven.notice;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import org.apache.commons.lang.StringUtils;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
-import org.apache.maven.model.License;
-import org.apache.maven.model.Model;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.MavenProjectBuilder;
@@ -38,6 +45,20 @@ import org.apache.maven.shared.dependency.graph.DependencyNode;
 import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
 import org.jasig.maven.notice.lookup.ArtifactLicense;
 
+/**
+ * Resolves the name and license of every unique artifact in the visited dependency trees.
+ *
+ * <p>If a resolution {@link ExecutorService} is provided the traversal only collects the unique
+ * artifacts and submits their license resolution to the executor. The results are recorded in
+ * traversal order once they are requested, so the output is identical to the serial path.
+ *
+ * <p>Visitors for different modules may share their resolutions, each artifact is then resolved
+ * once no matter how many of the visitors see it.
+ *
+ * <p>Every node is walked. Conflict resolution leaves each artifact in a module's tree once, and
+ * dependency management and version mediation can give an artifact different transitive
+ * dependencies in each module, so there are no repeated subtrees that could be skipped.
+ */
 class LicenseResolvingNodeVisitor implements DependencyNodeVisitor {
     private final Set<ArtifactLicenseInfo> resolvedLicenses =
             new TreeSet<ArtifactLicenseInfo>(
@@ -49,45 +70,241 @@ class LicenseResolvingNodeVisitor implements DependencyNodeVisitor {
                     });
     private final Set<Artifact> unresolvedArtifacts = new TreeSet<Artifact>();
     private final Set<Artifact> visitedArtifacts = new HashSet<Artifact>();
+    private final List<PendingResolution> pendingResolutions = new ArrayList<PendingResolution>();
+    private final List<NoticeLock.Entry> lockEntries = new ArrayList<NoticeLock.Entry>();
+    /** Optional status of each node on the path from the root to the current node */
+    private final Deque<Boolean> optionalPath = new ArrayDeque<Boolean>();
 
     private final Log logger;
     private final LicenseLookupHelper licenseLookupHelper;
     private final List<ArtifactRepository> remoteArtifactRepositories;
     private final MavenProjectBuilder mavenProjectBuilder;
     private final ArtifactRepository localRepository;
+    private final PomLicenseRegistry pomLicenseRegistry;
+    private final PomLicenseCache pomLicenseCache;
+    private final PomLicenseReader pomLicenseReader;
+    private final ExecutorService resolutionExecutor;
+    private final DependencyFilter dependencyFilter;
+    private final ConcurrentMap<Artifact, Future<ArtifactResolution>> resolutions;
 
+    /**
+     * @param pomLicenseRegistry Registry of POM licenses shared by all modules in the build, may
+     *     be null
+     * @param pomLicenseCache Persistent cache of licenses read from POMs, may be null
+     * @param pomLicenseReader Streaming reader used before falling back to the project builder,
+     *     may be null
+     * @param resolutionExecutor Executor to resolve licenses on, if null licenses are resolved
+     *     serially as each node is visited
+     */
     LicenseResolvingNodeVisitor(
             Log logger,
             LicenseLookupHelper licenseLookupHelper,
             List<ArtifactRepository> remoteArtifactRepositories,
             MavenProjectBuilder mavenProjectBuilder,
-            ArtifactRepository localRepository) {
+            ArtifactRepository localRepository,
+            PomLicenseRegistry pomLicenseRegistry,
+            PomLicenseCache pomLicenseCache,
+            PomLicenseReader pomLicenseReader,
+            ExecutorService resolutionExecutor) {
+        this(
+                logger,
+                licenseLookupHelper,
+                remoteArtifactRepositories,
+                mavenProjectBuilder,
+                localRepository,
+                pomLicenseRegistry,
+                pomLicenseCache,
+                pomLicenseReader,
+                resolutionExecutor,
+                null,
+                new ConcurrentHashMap<Artifact, Future<ArtifactResolution>>());
+    }
+
+    /**
+     * @param dependencyFilter Dependencies to list, filtered dependencies aren't resolved and
+     *     subtrees that can't contain a listed dependency aren't visited. May be null to list
+     *     every dependency
+     * @param resolutions Resolutions shared with other visitors, completed or in-flight
+     */
+    LicenseResolvingNodeVisitor(
+            Log logger,
+            LicenseLookupHelper licenseLookupHelper,
+            List<ArtifactRepository> remoteArtifactRepositories,
+            MavenProjectBuilder mavenProjectBuilder,
+            ArtifactRepository localRepository,
+            PomLicenseRegistry pomLicenseRegistry,
+            PomLicenseCache pomLicenseCache,
+            PomLicenseReader pomLicenseReader,
+            ExecutorService resolutionExecutor,
+            DependencyFilter dependencyFilter,
+            ConcurrentMap<Artifact, Future<ArtifactResolution>> resolutions) {
 
         this.logger = logger;
         this.licenseLookupHelper = licenseLookupHelper;
         this.remoteArtifactRepositories = remoteArtifactRepositories;
         this.mavenProjectBuilder = mavenProjectBuilder;
         this.localRepository = localRepository;
+        this.pomLicenseRegistry = pomLicenseRegistry;
+        this.pomLicenseCache = pomLicenseCache;
+        this.pomLicenseReader = pomLicenseReader;
+        this.resolutionExecutor = resolutionExecutor;
+        this.dependencyFilter = dependencyFilter;
+        this.resolutions = resolutions;
+    }
+
+    /** @return A new map for visitors to share resolutions through */
+    static ConcurrentMap<Artifact, Future<ArtifactResolution>> createSharedResolutions() {
+        return new ConcurrentHashMap<Artifact, Future<ArtifactResolution>>();
+    }
+
+    /**
+     * @return A completed resolution, used to share licenses resolved by an earlier build
+     */
+    static Future<ArtifactResolution> createResolution(
+            String name, String licenseName, String source) {
+        final ArtifactResolution artifactResolution =
+                new ArtifactResolution(name, licenseName, source);
+        final FutureTask<ArtifactResolution> resolution =
+                new FutureTask<ArtifactResolution>(
+                        new Callable<ArtifactResolution>() {
+                            public ArtifactResolution call() {
+                                return artifactResolution;
+                            }
+                        });
+        resolution.run();
+        return resolution;
     }
 
     public Set<ArtifactLicenseInfo> getResolvedLicenses() {
+        this.awaitPendingResolutions();
         return resolvedLicenses;
     }
 
     public Set<Artifact> getUnresolvedArtifacts() {
+        this.awaitPendingResolutions();
         return unresolvedArtifacts;
     }
 
+    /** @return The lock entries of the resolved artifacts, in the order they were visited */
+    public List<NoticeLock.Entry> getLockEntries() {
+        this.awaitPendingResolutions();
+        return lockEntries;
+    }
+
     public boolean visit(DependencyNode node) {
         final Artifact artifact = node.getArtifact();
 
+        // A node is optional if it or any node it was reached through is optional
+        final boolean optional =
+                artifact.isOptional()
+                        || (!this.optionalPath.isEmpty() && this.optionalPath.peek());
+        this.optionalPath.push(optional);
+
+        // Filtered nodes aren't resolved, skip their subtree if nothing in it can be included
+        final String scope = artifact.getScope();
+        if (this.dependencyFilter != null && !this.dependencyFilter.isIncluded(scope, optional)) {
+            return this.dependencyFilter.mayIncludeDescendants(optional);
+        }
+
         // Only resolve an artifact once, if already visited just skip it
         if (!visitedArtifacts.add(artifact)) {
             return true;
         }
 
+        final PendingResolution pendingResolution =
+                new PendingResolution(artifact, scope, optional);
+        pendingResolution.result = this.getResolution(artifact);
+        if (this.resolutionExecutor == null) {
+            this.recordResolution(pendingResolution);
+        } else {
+            this.pendingResolutions.add(pendingResolution);
+        }
+        return true;
+    }
+
+    /**
+     * Get the shared resolution of the artifact, starting it if no visitor has yet. Without an
+     * executor the resolution runs on the calling thread.
+     */
+    private Future<ArtifactResolution> getResolution(final Artifact artifact) {
+        final Future<ArtifactResolution> existing = this.resolutions.get(artifact);
+        if (existing != null) {
+            return existing;
+        }
+
+        final FutureTask<ArtifactResolution> resolution =
+                new FutureTask<ArtifactResolution>(
+                        new Callable<ArtifactResolution>() {
+                            public ArtifactResolution call() {
+                                return resolveLicense(artifact);
+                            }
+                        });
+        final Future<ArtifactResolution> raced = this.resolutions.putIfAbsent(artifact, resolution);
+        if (raced != null) {
+            return raced;
+        }
+
+        if (this.resolutionExecutor == null) {
+            resolution.run();
+        } else {
+            this.resolutionExecutor.execute(resolution);
+        }
+        return resolution;
+    }
+
+    /**
+     * Wait for all submitted license resolutions and record their results in the order the
+     * artifacts were visited.
+     */
+    protected void awaitPendingResolutions() {
+        for (final PendingResolution pendingResolution : this.pendingResolutions) {
+            this.recordResolution(pendingResolution);
+        }
+        this.pendingResolutions.clear();
+    }
+
+    /** Wait for the artifact's resolution and record the outcome */
+    private void recordResolution(PendingResolution pendingResolution) {
+        final ArtifactResolution artifactResolution;
+        try {
+            artifactResolution = pendingResolution.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    "Interrupted while resolving license for: " + pendingResolution.artifact, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(
+                    "Failed to resolve license for: " + pendingResolution.artifact, e.getCause());
+        }
+
+        if (artifactResolution.licenseName == null) {
+            this.unresolvedArtifacts.add(pendingResolution.artifact);
+        } else {
+            this.resolvedLicenses.add(
+                    new ArtifactLicenseInfo(
+                            artifactResolution.name,
+                            artifactResolution.licenseName,
+                            pendingResolution.scope,
+                            pendingResolution.optional));
+            this.lockEntries.add(
+                    new NoticeLock.Entry(
+                            pendingResolution.artifact,
+                            pendingResolution.scope,
+                            pendingResolution.optional,
+                            artifactResolution.source,
+                            artifactResolution.name,
+                            artifactResolution.licenseName));
+        }
+    }
+
+    /**
+     * Determine the name and license for the artifact from the license mappings, falling back to
+     * the artifact's POM. Must be safe to call concurrently for different artifacts.
+     */
+    protected ArtifactResolution resolveLicense(final Artifact artifact) {
         String name = null;
         String licenseName = null;
+        String source = NoticeLock.SOURCE_MAPPING;
 
         // Look for a matching mapping first
         final ResolvedLicense resolvedLicense = this.loadLicenseMapping(artifact);
@@ -99,30 +316,15 @@ class LicenseResolvingNodeVisitor implements DependencyNodeVisitor {
 
         // If name or license are still null try loading from the project
         if (name == null || licenseName == null) {
-            final MavenProject artifactProject = this.loadProject(artifact);
-            if (artifactProject != null) {
+            final PomLicense pomLicense = this.loadPomLicense(artifact);
+            if (pomLicense != null) {
                 if (name == null) {
-                    name = artifactProject.getName();
+                    name = pomLicense.getName();
                 }
 
                 if (licenseName == null) {
-                    final Model model = artifactProject.getModel();
-                    final List<License> licenses = model.getLicenses();
-
-                    if (licenses.size() == 1) {
-                        licenseName = licenses.get(0).getName();
-                    } else if (licenses.size() > 1) {
-                        final StringBuilder licenseNameBuilder = new StringBuilder();
-                        for (final Iterator<License> licenseItr = licenses.iterator();
-                                licenseItr.hasNext(); ) {
-                            final License license = licenseItr.next();
-                            licenseNameBuilder.append(license.getName());
-                            if (licenseItr.hasNext()) {
-                                licenseNameBuilder.append(" or ");
-                            }
-                        }
-                        licenseName = licenseNameBuilder.toString();
-                    }
+                    licenseName = pomLicense.getLicenseName();
+                    source = NoticeLock.SOURCE_POM;
                 }
             }
         }
@@ -137,6 +339,7 @@ class LicenseResolvingNodeVisitor implements DependencyNodeVisitor {
             if (licenseName == null) {
                 if (artifactLicense != null) {
                     licenseName = StringUtils.trimToNull(artifactLicense.getLicense());
+                    source = NoticeLock.SOURCE_MAPPING;
                 }
             }
         }
@@ -146,40 +349,7 @@ class LicenseResolvingNodeVisitor implements DependencyNodeVisitor {
             name = artifact.getGroupId() + ":" + artifact.getArtifactId();
         }
 
-        // Record the artifact resolution outcome
-        if (licenseName == null) {
-            this.unresolvedArtifacts.add(artifact);
-        } else {
-            this.resolvedLicenses.add(
-                    new ArtifactLicenseInfo(
-                            name,
-                            licenseName,
-                            node.getArtifact().getScope(),
-                            hasOptionalLicense(node)));
-        }
-        return true;
-    }
-
-    /**
-     * Check if the given node or any of its parents are optional. i.e. if your POM declares an
-     * optional dependency A with a transitive dependency B:
-     *
-     * <ul>
-     *   <li>A will return true because it is optional
-     *   <li>B will have A as its parent, and so it will also be optional
-     *   <li>If B were to be directly declared as a non-optional dependency, then this method would
-     *       return false.
-     * </ul>
-     */
-    private boolean hasOptionalLicense(DependencyNode node) {
-        while (node != null && node.getArtifact() != null) {
-            if (node.getArtifact().isOptional()) {
-                return true;
-            }
-            node = node.getParent();
-        }
-
-        return false;
+        return new ArtifactResolution(name, licenseName, source);
     }
 
     protected ResolvedLicense loadLicenseMapping(final Artifact artifact) {
@@ -191,6 +361,59 @@ class LicenseResolvingNodeVisitor implements DependencyNodeVisitor {
         return resolvedLicense;
     }
 
+    /**
+     * Load the name and license from the artifact's POM, each POM is only loaded once per build
+     * if a registry is configured.
+     */
+    protected PomLicense loadPomLicense(final Artifact artifact) {
+        if (this.pomLicenseRegistry == null) {
+            return this.readPomLicense(artifact);
+        }
+
+        return this.pomLicenseRegistry.resolve(
+                artifact,
+                new Callable<PomLicense>() {
+                    public PomLicense call() {
+                        return readPomLicense(artifact);
+                    }
+                });
+    }
+
+    /**
+     * Read the name and license from the artifact's POM. The license cache is checked first, then
+     * the POM is read directly and only if that isn't possible is the full project built.
+     */
+    protected PomLicense readPomLicense(final Artifact artifact) {
+        // Only checksum the POM once, for the lookup and for storing a missing entry
+        String pomChecksum = null;
+        if (this.pomLicenseCache != null) {
+            pomChecksum = this.pomLicenseCache.getPomChecksum(artifact);
+            final PomLicense cachedLicense = this.pomLicenseCache.get(artifact, pomChecksum);
+            if (cachedLicense != null) {
+                this.logger.debug("Found cached " + cachedLicense + " for: " + artifact);
+                return cachedLicense;
+            }
+        }
+
+        PomLicense pomLicense = null;
+        if (this.pomLicenseReader != null) {
+            pomLicense = this.pomLicenseReader.read(artifact);
+        }
+
+        if (pomLicense == null) {
+            final MavenProject artifactProject = this.loadProject(artifact);
+            if (artifactProject == null) {
+                return null;
+            }
+            pomLicense = PomLicense.fromProject(artifactProject);
+        }
+
+        if (this.pomLicenseCache != null) {
+            this.pomLicenseCache.put(artifact, pomChecksum, pomLicense);
+        }
+        return pomLicense;
+    }
+
     protected MavenProject loadProject(final Artifact artifact) {
         try {
             return mavenProjectBuilder.buildFromRepository(
@@ -206,6 +429,37 @@ class LicenseResolvingNodeVisitor implements DependencyNodeVisitor {
     }
 
     public boolean endVisit(DependencyNode node) {
+        this.optionalPath.pop();
         return true;
     }
+
+    /**
+     * The name and license resolved for an artifact, the license is null if not found. The source
+     * is where the license was found, see {@link NoticeLock}.
+     */
+    static final class ArtifactResolution {
+        private final String name;
+        private final String licenseName;
+        private final String source;
+
+        ArtifactResolution(String name, String licenseName, String source) {
+            this.name = name;
+            this.licenseName = licenseName;
+            this.source = source;
+        }
+    }
+
+    /** A visited artifact along with the node data needed to record its resolution */
+    private static final class PendingResolution {
+        private final Artifact artifact;
+        private final String scope;
+        private final boolean optional;
+        private Future<ArtifactResolution> result;
+
+        PendingResolution(Artifact artifact, String scope, boolean optional) {
+            this.artifact = artifact;
+            this.scope = scope;
+            this.optional = optional;
+        }
+    }
 }
@@ -0,0 +1,121 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.jasig.maven.notice.lookup.ArtifactLicense;
+import org.jasig.maven.notice.lookup.MappedVersion;
+
+/**
+ * License mappings from one or more license-lookup files merged in configuration order. Mappings
+ * for the same groupId/artifactId are grouped together, a later mapping with the same version list
+ * replaces an earlier one but keeps its position.
+ */
+class MergedLicenseMappings {
+    private final Map<String, Map<List<MappedVersion>, ArtifactLicense>> mergedLicenseLookup =
+            new LinkedHashMap<String, Map<List<MappedVersion>, ArtifactLicense>>();
+
+    /** Add a mapping, replacing any earlier mapping of the same artifact and version list */
+    public void add(ArtifactLicense artifactLicense) {
+        final String artifactKey =
+                artifactLicense.getGroupId() + ":" + artifactLicense.getArtifactId();
+
+        Map<List<MappedVersion>, ArtifactLicense> artifactVersions =
+                this.mergedLicenseLookup.get(artifactKey);
+        if (artifactVersions == null) {
+            artifactVersions = new LinkedHashMap<List<MappedVersion>, ArtifactLicense>();
+            this.mergedLicenseLookup.put(artifactKey, artifactVersions);
+        }
+
+        artifactVersions.put(artifactLicense.getVersion(), artifactLicense);
+    }
+
+    /** @return The merged mappings of each artifact, in lookup order */
+    public List<List<ArtifactLicense>> getArtifactLicenses() {
+        final List<List<ArtifactLicense>> artifactLicenses =
+                new ArrayList<List<ArtifactLicense>>(this.mergedLicenseLookup.size());
+        for (final Map<List<MappedVersion>, ArtifactLicense> artifactVersions :
+                this.mergedLicenseLookup.values()) {
+            artifactLicenses.add(new ArrayList<ArtifactLicense>(artifactVersions.values()));
+        }
+        return artifactLicenses;
+    }
+
+    /**
+     * @return The merged mappings compiled into immutable matchers indexed by groupId then
+     *     artifactId
+     * @throws MojoFailureException If a mapping contains an invalid version range
+     */
+    public Map<String, Map<String, ArtifactLicenseMatcher>> compile()
+            throws MojoFailureException {
+        final Map<String, Map<String, ArtifactLicenseMatcher>> licenseMatchers =
+                new HashMap<String, Map<String, ArtifactLicenseMatcher>>();
+
+        for (final Map<List<MappedVersion>, ArtifactLicense> artifactVersions :
+                this.mergedLicenseLookup.values()) {
+            final ArtifactLicense artifactLicense = artifactVersions.values().iterator().next();
+
+            Map<String, ArtifactLicenseMatcher> artifactMatchers =
+                    licenseMatchers.get(artifactLicense.getGroupId());
+            if (artifactMatchers == null) {
+                artifactMatchers = new HashMap<String, ArtifactLicenseMatcher>();
+                licenseMatchers.put(artifactLicense.getGroupId(), artifactMatchers);
+            }
+
+            artifactMatchers.put(
+                    artifactLicense.getArtifactId(), compile(artifactVersions.values()));
+        }
+
+        for (final Map.Entry<String, Map<String, ArtifactLicenseMatcher>> artifactMatchers :
+                licenseMatchers.entrySet()) {
+            artifactMatchers.setValue(Collections.unmodifiableMap(artifactMatchers.getValue()));
+        }
+        return Collections.unmodifiableMap(licenseMatchers);
+    }
+
+    /**
+     * @param artifactLicenses The mappings of a single artifact, in lookup order
+     * @return The compiled matcher
+     * @throws MojoFailureException If a mapping contains an invalid version range
+     */
+    static ArtifactLicenseMatcher compile(Collection<ArtifactLicense> artifactLicenses)
+            throws MojoFailureException {
+        try {
+            return new ArtifactLicenseMatcher(artifactLicenses);
+        } catch (InvalidVersionSpecificationException e) {
+            final ArtifactLicense artifactLicense = artifactLicenses.iterator().next();
+            throw new MojoFailureException(
+                    "Invalid version range mapped for '"
+                            + artifactLicense.getGroupId()
+                            + ":"
+                            + artifactLicense.getArtifactId()
+                            + "': "
+                            + e.getMessage(),
+                    e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Decides which child modules are excluded from aggregation. A module is excluded if its
+ * artifactId, or the artifactId of a parent below the aggregating module, is one of the excluded
+ * modules. The parent chain of each module is only walked once.
+ */
+class ModuleExclusions {
+    private final Set<String> excludedModules;
+    private final Map<MavenProject, ModuleAncestry> ancestries =
+            new HashMap<MavenProject, ModuleAncestry>();
+
+    ModuleExclusions(Set<String> excludedModules) {
+        this.excludedModules = excludedModules;
+    }
+
+    /**
+     * @param mavenProject The module to check
+     * @param rootArtifactId The artifactId of the module aggregating it, parents from this one up
+     *     are not checked
+     * @return The excluded artifactId that excludes the module, null if it is not excluded
+     */
+    public synchronized String getExcludingArtifactId(
+            MavenProject mavenProject, String rootArtifactId) {
+        ModuleAncestry ancestry = this.ancestries.get(mavenProject);
+        if (ancestry == null) {
+            ancestry = new ModuleAncestry(mavenProject, this.excludedModules);
+            this.ancestries.put(mavenProject, ancestry);
+        }
+
+        if (ancestry.excludedSelf) {
+            return mavenProject.getArtifactId();
+        }
+        if (ancestry.firstExcludedParent < 0) {
+            return null;
+        }
+
+        // The parent walk stops at the aggregating module
+        final int rootIndex = ancestry.parentArtifactIds.indexOf(rootArtifactId);
+        if (rootIndex >= 0 && rootIndex <= ancestry.firstExcludedParent) {
+            return null;
+        }
+        return ancestry.parentArtifactIds.get(ancestry.firstExcludedParent);
+    }
+
+    /** The parent artifactIds of a module and the position of the first excluded one */
+    private static final class ModuleAncestry {
+        private final boolean excludedSelf;
+        private final List<String> parentArtifactIds;
+        private final int firstExcludedParent;
+
+        ModuleAncestry(MavenProject mavenProject, Set<String> excludedModules) {
+            this.excludedSelf = excludedModules.contains(mavenProject.getArtifactId());
+
+            final List<String> artifactIds = new ArrayList<String>();
+            int firstExcluded = -1;
+            for (MavenProject parentProject = mavenProject.getParent();
+                    parentProject != null;
+                    parentProject = parentProject.getParent()) {
+                final String parentArtifactId = parentProject.getArtifactId();
+                if (firstExcluded < 0 && excludedModules.contains(parentArtifactId)) {
+                    firstExcluded = artifactIds.size();
+                }
+                artifactIds.add(parentArtifactId);
+            }
+
+            this.parentArtifactIds = Collections.unmodifiableList(artifactIds);
+            this.firstExcludedParent = firstExcluded;
+        }
+    }
+}
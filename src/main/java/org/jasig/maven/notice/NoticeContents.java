@@ -0,0 +1,333 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * The contents of a NOTICE file, rendered on demand from the compiled template and the resolved
+ * licenses. The contents are written or read in chunks of a template segment or a single notice
+ * line, so they never have to be held in memory as a whole.
+ */
+public class NoticeContents {
+    private final NoticeTemplate template;
+    private final Collection<ArtifactLicenseInfo> resolvedLicenses;
+    private final DependencyFilter dependencyFilter;
+    private final NoticeLineFormat lineFormat;
+    private final MavenProject project;
+
+    /**
+     * @param template The compiled NOTICE template
+     * @param resolvedLicenses The licenses to list, in order
+     * @param dependencyFilter Filter for the licenses to list, may be null to list all
+     * @param lineFormat Format of each notice line
+     * @param project The project metadata placeholders are rendered from, may be null
+     */
+    NoticeContents(
+            NoticeTemplate template,
+            Collection<ArtifactLicenseInfo> resolvedLicenses,
+            DependencyFilter dependencyFilter,
+            NoticeLineFormat lineFormat,
+            MavenProject project) {
+        this.template = template;
+        this.resolvedLicenses = resolvedLicenses;
+        this.dependencyFilter = dependencyFilter;
+        this.lineFormat = lineFormat;
+        this.project = project;
+    }
+
+    /**
+     * Write the contents, the writer is not flushed or closed
+     *
+     * @param writer The writer to write to
+     * @throws IOException If writing fails
+     */
+    public void writeTo(Writer writer) throws IOException {
+        for (final Iterator<String> chunks = new ChunkIterator(); chunks.hasNext(); ) {
+            writer.write(chunks.next());
+        }
+    }
+
+    /**
+     * @return A reader of the contents, rendered as they are read
+     */
+    public Reader getReader() {
+        return new ContentsReader(new ChunkIterator());
+    }
+
+    /**
+     * @return The complete contents
+     */
+    @Override
+    public String toString() {
+        final StringWriter writer = new StringWriter();
+        try {
+            this.writeTo(writer);
+        } catch (IOException e) {
+            throw new IllegalStateException("StringWriter can't fail", e);
+        }
+        return writer.toString();
+    }
+
+    private boolean isListed(ArtifactLicenseInfo resolvedLicense) {
+        return this.dependencyFilter == null
+                || this.dependencyFilter.isIncluded(
+                        resolvedLicense.getScope(), resolvedLicense.isOptional());
+    }
+
+    /** @return The chunks rendering a placeholder, one per line for multi-line placeholders */
+    private Iterator<String> renderPlaceholder(NoticeTemplate.Placeholder placeholder) {
+        switch (placeholder) {
+            case NOTICES:
+                return new NoticeLineIterator();
+            case NOTICES_BY_LICENSE:
+                return this.renderNoticesByLicense().iterator();
+            default:
+                final List<String> chunks = new ArrayList<String>(1);
+                chunks.add(this.renderValue(placeholder));
+                return chunks.iterator();
+        }
+    }
+
+    private List<String> renderNoticesByLicense() {
+        final Map<String, List<String>> namesByLicense =
+                new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        for (final ArtifactLicenseInfo resolvedLicense : this.resolvedLicenses) {
+            if (!this.isListed(resolvedLicense)) {
+                continue;
+            }
+            List<String> names = namesByLicense.get(resolvedLicense.getLicenseName());
+            if (names == null) {
+                names = new ArrayList<String>();
+                namesByLicense.put(resolvedLicense.getLicenseName(), names);
+            }
+            names.add(resolvedLicense.getArtifactName());
+        }
+
+        // Licenses are grouped under their first spelling
+        final List<String> chunks = new ArrayList<String>();
+        for (final Map.Entry<String, List<String>> group : namesByLicense.entrySet()) {
+            if (!chunks.isEmpty()) {
+                chunks.add(IOUtils.LINE_SEPARATOR);
+            }
+            chunks.add(group.getKey() + IOUtils.LINE_SEPARATOR);
+            for (final String name : group.getValue()) {
+                chunks.add("  " + name + IOUtils.LINE_SEPARATOR);
+            }
+        }
+        return chunks;
+    }
+
+    private String renderValue(NoticeTemplate.Placeholder placeholder) {
+        switch (placeholder) {
+            case DEPENDENCY_COUNT:
+                int count = 0;
+                for (final ArtifactLicenseInfo resolvedLicense : this.resolvedLicenses) {
+                    if (this.isListed(resolvedLicense)) {
+                        count++;
+                    }
+                }
+                return String.valueOf(count);
+            case LICENSE_COUNT:
+                final Set<String> licenseNames =
+                        new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+                for (final ArtifactLicenseInfo resolvedLicense : this.resolvedLicenses) {
+                    if (this.isListed(resolvedLicense)) {
+                        licenseNames.add(resolvedLicense.getLicenseName());
+                    }
+                }
+                return String.valueOf(licenseNames.size());
+            default:
+                return this.renderProjectValue(placeholder);
+        }
+    }
+
+    private String renderProjectValue(NoticeTemplate.Placeholder placeholder) {
+        if (this.project == null) {
+            return "";
+        }
+
+        final String value;
+        switch (placeholder) {
+            case PROJECT_NAME:
+                value = this.project.getName();
+                break;
+            case PROJECT_GROUP_ID:
+                value = this.project.getGroupId();
+                break;
+            case PROJECT_ARTIFACT_ID:
+                value = this.project.getArtifactId();
+                break;
+            case PROJECT_VERSION:
+                value = this.project.getVersion();
+                break;
+            case PROJECT_URL:
+                value = this.project.getUrl();
+                break;
+            case PROJECT_INCEPTION_YEAR:
+                value = this.project.getInceptionYear();
+                break;
+            case PROJECT_ORGANIZATION:
+                value =
+                        this.project.getOrganization() == null
+                                ? null
+                                : this.project.getOrganization().getName();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown placeholder: " + placeholder);
+        }
+        return value == null ? "" : value;
+    }
+
+    /** Iterates over the template segments with their placeholders rendered */
+    private final class ChunkIterator implements Iterator<String> {
+        private final Iterator<NoticeTemplate.Segment> segments =
+                template.getSegments().iterator();
+        private Iterator<String> placeholderChunks;
+        private String next;
+
+        public boolean hasNext() {
+            if (this.next == null) {
+                this.next = this.computeNext();
+            }
+            return this.next != null;
+        }
+
+        public String next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final String chunk = this.next;
+            this.next = null;
+            return chunk;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private String computeNext() {
+            while (true) {
+                if (this.placeholderChunks != null) {
+                    if (this.placeholderChunks.hasNext()) {
+                        return this.placeholderChunks.next();
+                    }
+                    this.placeholderChunks = null;
+                }
+
+                if (!this.segments.hasNext()) {
+                    return null;
+                }
+                final NoticeTemplate.Segment segment = this.segments.next();
+                if (segment.getPlaceholder() == NoticeTemplate.Placeholder.LITERAL) {
+                    return segment.getText();
+                }
+                this.placeholderChunks = renderPlaceholder(segment.getPlaceholder());
+            }
+        }
+    }
+
+    /** Formats the listed licenses one line at a time */
+    private final class NoticeLineIterator implements Iterator<String> {
+        private final Iterator<ArtifactLicenseInfo> licenses = resolvedLicenses.iterator();
+        private final StringBuilder line = new StringBuilder();
+        private ArtifactLicenseInfo next;
+
+        public boolean hasNext() {
+            while (this.next == null && this.licenses.hasNext()) {
+                final ArtifactLicenseInfo resolvedLicense = this.licenses.next();
+                if (isListed(resolvedLicense)) {
+                    this.next = resolvedLicense;
+                }
+            }
+            return this.next != null;
+        }
+
+        public String next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            this.line.setLength(0);
+            lineFormat.appendTo(
+                    this.line, this.next.getArtifactName(), this.next.getLicenseName());
+            this.line.append(IOUtils.LINE_SEPARATOR);
+            this.next = null;
+            return this.line.toString();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /** Reads the chunks as they are rendered */
+    private static final class ContentsReader extends Reader {
+        private final Iterator<String> chunks;
+        private String chunk = "";
+        private int position;
+
+        ContentsReader(Iterator<String> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+
+            int read = 0;
+            while (read < length) {
+                if (this.position == this.chunk.length()) {
+                    if (!this.chunks.hasNext()) {
+                        break;
+                    }
+                    this.chunk = this.chunks.next();
+                    this.position = 0;
+                    continue;
+                }
+
+                final int count = Math.min(length - read, this.chunk.length() - this.position);
+                this.chunk.getChars(this.position, this.position + count, buffer, offset + read);
+                this.position += count;
+                read += count;
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+    }
+}
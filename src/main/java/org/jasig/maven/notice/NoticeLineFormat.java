@@ -0,0 +1,129 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The noticeMessage compiled into literal text and argument references, so each line is
+ * formatted by appending strings. Only {0} (artifact name) and {1} (license name) arguments are
+ * compiled, patterns using format types, styles or other arguments are formatted with
+ * {@link MessageFormat}. Quoting follows the {@link MessageFormat} rules either way.
+ */
+final class NoticeLineFormat {
+    private final String pattern;
+    /** Literal text before each argument, plus the text after the last one */
+    private final String[] literals;
+    private final int[] arguments;
+    /** Used if the pattern can't be compiled, guarded by itself */
+    private final MessageFormat messageFormat;
+
+    private NoticeLineFormat(
+            String pattern, String[] literals, int[] arguments, MessageFormat messageFormat) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.arguments = arguments;
+        this.messageFormat = messageFormat;
+    }
+
+    /**
+     * @param pattern The {@link MessageFormat} pattern
+     * @return The compiled format
+     * @throws IllegalArgumentException If the pattern is invalid
+     */
+    static NoticeLineFormat compile(String pattern) {
+        final List<String> literals = new ArrayList<String>();
+        final List<Integer> arguments = new ArrayList<Integer>();
+
+        final StringBuilder literal = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == '{' && !quoted) {
+                final int end = pattern.indexOf('}', i);
+                final String argument = end < 0 ? null : pattern.substring(i + 1, end);
+                if (!"0".equals(argument) && !"1".equals(argument)) {
+                    return new NoticeLineFormat(pattern, null, null, new MessageFormat(pattern));
+                }
+                literals.add(literal.toString());
+                literal.setLength(0);
+                arguments.add(argument.charAt(0) - '0');
+                i = end;
+            } else {
+                literal.append(c);
+            }
+        }
+        literals.add(literal.toString());
+
+        final int[] argumentIndexes = new int[arguments.size()];
+        for (int i = 0; i < argumentIndexes.length; i++) {
+            argumentIndexes[i] = arguments.get(i);
+        }
+        return new NoticeLineFormat(
+                pattern, literals.toArray(new String[literals.size()]), argumentIndexes, null);
+    }
+
+    /** @return The pattern the format was compiled from */
+    String getPattern() {
+        return this.pattern;
+    }
+
+    /**
+     * Append a formatted line
+     *
+     * @param builder The builder to append to
+     * @param artifactName Argument {0}
+     * @param licenseName Argument {1}
+     */
+    void appendTo(StringBuilder builder, String artifactName, String licenseName) {
+        if (this.messageFormat != null) {
+            synchronized (this.messageFormat) {
+                builder.append(
+                        this.messageFormat.format(new Object[] {artifactName, licenseName}));
+            }
+            return;
+        }
+
+        for (int i = 0; i < this.arguments.length; i++) {
+            builder.append(this.literals[i]);
+            builder.append(this.arguments[i] == 0 ? artifactName : licenseName);
+        }
+        builder.append(this.literals[this.arguments.length]);
+    }
+
+    /**
+     * @param artifactName Argument {0}
+     * @param licenseName Argument {1}
+     * @return The formatted line
+     */
+    String format(String artifactName, String licenseName) {
+        final StringBuilder builder = new StringBuilder();
+        this.appendTo(builder, artifactName, licenseName);
+        return builder.toString();
+    }
+}
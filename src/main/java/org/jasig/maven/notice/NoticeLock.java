@@ -0,0 +1,337 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * The licenses resolved for the artifacts of a NOTICE file, written by the generate goal next to
+ * the NOTICE file. Each line holds one artifact's coordinates, scope, optional flag, the source of
+ * its license and its resolved name and license, separated by tabs and sorted by coordinates.
+ *
+ * <p>The lock records a fingerprint of the license mappings it was resolved with. Entries may only
+ * be reused while the mappings are unchanged.
+ */
+class NoticeLock {
+    /** The license was found in the license mappings */
+    static final String SOURCE_MAPPING = "mapping";
+    /** The license was read from the artifact's POM */
+    static final String SOURCE_POM = "pom";
+
+    private static final String FORMAT_VERSION = "1";
+
+    private static final String COMMENT =
+            "# Licenses resolved for the NOTICE file, written by the notice-maven-plugin";
+    private static final String VERSION_PREFIX = "#version ";
+    private static final String MAPPINGS_PREFIX = "#mappings ";
+    private static final String ENCODING = "UTF-8";
+
+    private final String mappingsFingerprint;
+    private final List<Entry> entries;
+
+    /**
+     * @param mappingsFingerprint Fingerprint of the license mappings the entries were resolved with
+     * @param entries The entries, if several have the same coordinates the first is kept
+     */
+    NoticeLock(String mappingsFingerprint, Collection<Entry> entries) {
+        final Map<String, Entry> sortedEntries = new TreeMap<String, Entry>();
+        for (final Entry entry : entries) {
+            if (!sortedEntries.containsKey(entry.getKey())) {
+                sortedEntries.put(entry.getKey(), entry);
+            }
+        }
+
+        this.mappingsFingerprint = mappingsFingerprint;
+        this.entries = Collections.unmodifiableList(new ArrayList<Entry>(sortedEntries.values()));
+    }
+
+    /**
+     * Read a lock file
+     *
+     * @param lockFile The lock file to read
+     * @return The lock, null if the file doesn't exist or was written in an older format
+     * @throws IOException If the file could not be read or is malformed
+     */
+    static NoticeLock read(File lockFile) throws IOException {
+        if (!lockFile.isFile()) {
+            return null;
+        }
+
+        String version = null;
+        String mappingsFingerprint = null;
+        final List<Entry> entries = new ArrayList<Entry>();
+        for (final String line : FileUtils.readLines(lockFile, ENCODING)) {
+            if (line.startsWith(VERSION_PREFIX)) {
+                version = line.substring(VERSION_PREFIX.length());
+            } else if (line.startsWith(MAPPINGS_PREFIX)) {
+                mappingsFingerprint = line.substring(MAPPINGS_PREFIX.length());
+            } else if (line.length() > 0 && line.charAt(0) != '#') {
+                entries.add(Entry.parse(lockFile, line));
+            }
+        }
+
+        if (!FORMAT_VERSION.equals(version)) {
+            return null;
+        }
+        return new NoticeLock(mappingsFingerprint, entries);
+    }
+
+    /**
+     * @return Fingerprint of the license mappings the entries were resolved with
+     */
+    public String getMappingsFingerprint() {
+        return this.mappingsFingerprint;
+    }
+
+    /**
+     * @return The entries sorted by their coordinates
+     */
+    public List<Entry> getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * Write the lock file, the content only changes if the entries do. An unchanged file is left
+     * untouched, otherwise the content is written to a temporary file in the same directory which
+     * is then moved into place atomically, so an interrupted write never leaves a partial lock.
+     *
+     * @param lockFile The lock file to write
+     * @return true if the file was written, false if it was unchanged
+     * @throws IOException If the file could not be written
+     */
+    public boolean write(File lockFile) throws IOException {
+        final StringBuilder content = new StringBuilder();
+        content.append(COMMENT).append('\n');
+        content.append(VERSION_PREFIX).append(FORMAT_VERSION).append('\n');
+        content.append(MAPPINGS_PREFIX).append(this.mappingsFingerprint).append('\n');
+        for (final Entry entry : this.entries) {
+            entry.appendTo(content);
+            content.append('\n');
+        }
+        final byte[] bytes = content.toString().getBytes(ENCODING);
+        if (lockFile.isFile() && Arrays.equals(bytes, FileUtils.readFileToByteArray(lockFile))) {
+            return false;
+        }
+
+        final File lockDirectory = lockFile.getAbsoluteFile().getParentFile();
+        FileUtils.forceMkdir(lockDirectory);
+        final File tempFile =
+                File.createTempFile("." + lockFile.getName() + "-", ".tmp", lockDirectory);
+        try {
+            FileUtils.writeByteArrayToFile(tempFile, bytes);
+            try {
+                Files.move(
+                        tempFile.toPath(),
+                        lockFile.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(
+                        tempFile.toPath(), lockFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+        return true;
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return StringUtils.replaceEach(
+                value,
+                new String[] {"\\", "\t", "\n", "\r"},
+                new String[] {"\\\\", "\\t", "\\n", "\\r"});
+    }
+
+    private static String unescape(String value) {
+        final StringBuilder unescaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                c = value.charAt(++i);
+                if (c == 't') {
+                    c = '\t';
+                } else if (c == 'n') {
+                    c = '\n';
+                } else if (c == 'r') {
+                    c = '\r';
+                }
+            }
+            unescaped.append(c);
+        }
+        return unescaped.toString();
+    }
+
+    /** The license resolved for one artifact */
+    static final class Entry {
+        private final String groupId;
+        private final String artifactId;
+        private final String type;
+        private final String classifier;
+        private final String version;
+        private final String scope;
+        private final boolean optional;
+        private final String source;
+        private final String name;
+        private final String licenseName;
+
+        Entry(
+                Artifact artifact,
+                String scope,
+                boolean optional,
+                String source,
+                String name,
+                String licenseName) {
+            this(
+                    artifact.getGroupId(),
+                    artifact.getArtifactId(),
+                    artifact.getType(),
+                    artifact.getClassifier(),
+                    artifact.getVersion(),
+                    scope,
+                    optional,
+                    source,
+                    name,
+                    licenseName);
+        }
+
+        Entry(
+                String groupId,
+                String artifactId,
+                String type,
+                String classifier,
+                String version,
+                String scope,
+                boolean optional,
+                String source,
+                String name,
+                String licenseName) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.type = type;
+            this.classifier = StringUtils.trimToNull(classifier);
+            this.version = version;
+            this.scope = scope;
+            this.optional = optional;
+            this.source = source;
+            this.name = name;
+            this.licenseName = licenseName;
+        }
+
+        private static Entry parse(File lockFile, String line) throws IOException {
+            final String[] fields = StringUtils.splitPreserveAllTokens(line, '\t');
+            final String[] coordinates = StringUtils.splitPreserveAllTokens(fields[0], ':');
+            if (fields.length != 6 || coordinates.length != 5) {
+                throw new IOException("Malformed entry in " + lockFile + ": " + line);
+            }
+
+            return new Entry(
+                    coordinates[0],
+                    coordinates[1],
+                    coordinates[2],
+                    coordinates[3],
+                    coordinates[4],
+                    StringUtils.trimToNull(fields[1]),
+                    Boolean.parseBoolean(fields[2]),
+                    fields[3],
+                    unescape(fields[4]),
+                    unescape(fields[5]));
+        }
+
+        private void appendTo(StringBuilder line) {
+            line.append(this.getKey()).append('\t');
+            line.append(this.scope == null ? "" : this.scope).append('\t');
+            line.append(this.optional).append('\t');
+            line.append(this.source).append('\t');
+            line.append(escape(this.name)).append('\t');
+            line.append(escape(this.licenseName));
+        }
+
+        /**
+         * @return groupId:artifactId:type:classifier:version
+         */
+        public String getKey() {
+            return this.groupId
+                    + ":"
+                    + this.artifactId
+                    + ":"
+                    + this.type
+                    + ":"
+                    + (this.classifier == null ? "" : this.classifier)
+                    + ":"
+                    + this.version;
+        }
+
+        public String getGroupId() {
+            return this.groupId;
+        }
+
+        public String getArtifactId() {
+            return this.artifactId;
+        }
+
+        public String getType() {
+            return this.type;
+        }
+
+        public String getClassifier() {
+            return this.classifier;
+        }
+
+        public String getVersion() {
+            return this.version;
+        }
+
+        public String getScope() {
+            return this.scope;
+        }
+
+        public boolean isOptional() {
+            return this.optional;
+        }
+
+        public String getSource() {
+            return this.source;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getLicenseName() {
+            return this.licenseName;
+        }
+    }
+}
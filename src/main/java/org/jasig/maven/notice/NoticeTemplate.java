@@ -0,0 +1,206 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.jasig.maven.notice.util.MemoryWeights;
+
+/**
+ * A NOTICE template compiled into a list of literal text and placeholder segments. Besides the
+ * configured notice placeholder templates may contain:
+ *
+ * <ul>
+ *   <li>#GENERATED_NOTICES_BY_LICENSE# - each license followed by the indented names of the
+ *       artifacts under it, licenses are separated by a blank line
+ *   <li>#DEPENDENCY_COUNT# - the number of listed artifacts
+ *   <li>#LICENSE_COUNT# - the number of distinct licenses
+ *   <li>#PROJECT_NAME#, #PROJECT_GROUP_ID#, #PROJECT_ARTIFACT_ID#, #PROJECT_VERSION#,
+ *       #PROJECT_URL#, #PROJECT_INCEPTION_YEAR#, #PROJECT_ORGANIZATION# - the project's metadata
+ * </ul>
+ *
+ * Compiled templates are immutable and may be shared.
+ */
+final class NoticeTemplate {
+    /** The kinds of segment a template is made of */
+    enum Placeholder {
+        LITERAL(null),
+        NOTICES(null),
+        NOTICES_BY_LICENSE("#GENERATED_NOTICES_BY_LICENSE#"),
+        DEPENDENCY_COUNT("#DEPENDENCY_COUNT#"),
+        LICENSE_COUNT("#LICENSE_COUNT#"),
+        PROJECT_NAME("#PROJECT_NAME#"),
+        PROJECT_GROUP_ID("#PROJECT_GROUP_ID#"),
+        PROJECT_ARTIFACT_ID("#PROJECT_ARTIFACT_ID#"),
+        PROJECT_VERSION("#PROJECT_VERSION#"),
+        PROJECT_URL("#PROJECT_URL#"),
+        PROJECT_INCEPTION_YEAR("#PROJECT_INCEPTION_YEAR#"),
+        PROJECT_ORGANIZATION("#PROJECT_ORGANIZATION#");
+
+        private final String token;
+
+        Placeholder(String token) {
+            this.token = token;
+        }
+    }
+
+    private final List<Segment> segments;
+
+    private NoticeTemplate(List<Segment> segments) {
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Compile a template, placeholders are matched left to right like {@link String#replace}
+     * does. The notice placeholder takes precedence if it is the same as another placeholder.
+     *
+     * @param template The template contents
+     * @param noticesPlaceholder The placeholder for the notice lines
+     * @return The compiled template
+     */
+    static NoticeTemplate compile(String template, String noticesPlaceholder) {
+        final List<Segment> segments = new ArrayList<Segment>();
+
+        int start = 0;
+        while (true) {
+            int matchIndex = -1;
+            Placeholder match = null;
+            String matchToken = null;
+            for (final Placeholder placeholder : Placeholder.values()) {
+                final String token =
+                        placeholder == Placeholder.NOTICES ? noticesPlaceholder : placeholder.token;
+                if (StringUtils.isEmpty(token)) {
+                    continue;
+                }
+                final int index = template.indexOf(token, start);
+                if (index >= 0 && (matchIndex < 0 || index < matchIndex)) {
+                    matchIndex = index;
+                    match = placeholder;
+                    matchToken = token;
+                }
+            }
+
+            if (match == null) {
+                break;
+            }
+            if (matchIndex > start) {
+                segments.add(
+                        new Segment(Placeholder.LITERAL, template.substring(start, matchIndex)));
+            }
+            segments.add(new Segment(match, null));
+            start = matchIndex + matchToken.length();
+        }
+        if (start < template.length()) {
+            segments.add(new Segment(Placeholder.LITERAL, template.substring(start)));
+        }
+
+        return new NoticeTemplate(segments);
+    }
+
+    /**
+     * @return The segments in order
+     */
+    List<Segment> getSegments() {
+        return this.segments;
+    }
+
+    /** @return The estimated heap used by the compiled template */
+    long estimateWeight() {
+        long weight = MemoryWeights.OBJECT * 2;
+        for (final Segment segment : this.segments) {
+            weight +=
+                    MemoryWeights.OBJECT
+                            + MemoryWeights.REFERENCE
+                            + MemoryWeights.of(segment.getText());
+        }
+        return weight;
+    }
+
+    /**
+     * Count the template lines before and after the notice lines. Only possible if the notice
+     * placeholder appears once, at the start of a line and the template has no other multi-line
+     * placeholders. The rest of the placeholder's line counts as the first line after.
+     *
+     * @return The number of lines before and after, -1 for both if they can't be counted
+     */
+    int[] getSurroundingLineCounts() {
+        int noticesIndex = -1;
+        for (int i = 0; i < this.segments.size(); i++) {
+            final Placeholder placeholder = this.segments.get(i).getPlaceholder();
+            if (placeholder == Placeholder.NOTICES_BY_LICENSE
+                    || (placeholder == Placeholder.NOTICES && noticesIndex >= 0)) {
+                return new int[] {-1, -1};
+            }
+            if (placeholder == Placeholder.NOTICES) {
+                noticesIndex = i;
+            }
+        }
+        if (noticesIndex < 0) {
+            return new int[] {-1, -1};
+        }
+
+        int prefixLines = 0;
+        for (int i = 0; i < noticesIndex; i++) {
+            prefixLines += this.segments.get(i).getLineSeparatorCount();
+        }
+        if (noticesIndex > 0) {
+            final Segment previous = this.segments.get(noticesIndex - 1);
+            if (previous.getPlaceholder() != Placeholder.LITERAL
+                    || !previous.getText().endsWith(IOUtils.LINE_SEPARATOR)) {
+                return new int[] {-1, -1};
+            }
+        }
+
+        int suffixLines = 0;
+        for (int i = noticesIndex + 1; i < this.segments.size(); i++) {
+            suffixLines += this.segments.get(i).getLineSeparatorCount();
+        }
+        return new int[] {prefixLines, suffixLines};
+    }
+
+    /** Literal text or a placeholder */
+    static final class Segment {
+        private final Placeholder placeholder;
+        private final String text;
+        private final int lineSeparatorCount;
+
+        Segment(Placeholder placeholder, String text) {
+            this.placeholder = placeholder;
+            this.text = text;
+            this.lineSeparatorCount =
+                    text == null ? 0 : StringUtils.countMatches(text, IOUtils.LINE_SEPARATOR);
+        }
+
+        Placeholder getPlaceholder() {
+            return this.placeholder;
+        }
+
+        /** @return The literal text, null for placeholders */
+        String getText() {
+            return this.text;
+        }
+
+        int getLineSeparatorCount() {
+            return this.lineSeparatorCount;
+        }
+    }
+}
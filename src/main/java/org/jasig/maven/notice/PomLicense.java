@@ -0,0 +1,82 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.util.Iterator;
+import java.util.List;
+import org.apache.maven.model.License;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * The artifact name and license read from an artifact's POM.
+ */
+public class PomLicense {
+    private final String name;
+    private final String licenseName;
+
+    public PomLicense(String name, String licenseName) {
+        this.name = name;
+        this.licenseName = licenseName;
+    }
+
+    /**
+     * @param project The project built from the artifact's POM
+     * @return The name and license of the project, multiple licenses are joined with "or"
+     */
+    public static PomLicense fromProject(MavenProject project) {
+        return new PomLicense(project.getName(), joinLicenses(project.getModel().getLicenses()));
+    }
+
+    /**
+     * @param licenses Licenses declared by a POM
+     * @return The license names joined with "or", null if there are no licenses
+     */
+    public static String joinLicenses(List<License> licenses) {
+        if (licenses.size() == 1) {
+            return licenses.get(0).getName();
+        } else if (licenses.size() > 1) {
+            final StringBuilder licenseNameBuilder = new StringBuilder();
+            for (final Iterator<License> licenseItr = licenses.iterator(); licenseItr.hasNext(); ) {
+                final License license = licenseItr.next();
+                licenseNameBuilder.append(license.getName());
+                if (licenseItr.hasNext()) {
+                    licenseNameBuilder.append(" or ");
+                }
+            }
+            return licenseNameBuilder.toString();
+        }
+
+        return null;
+    }
+
+    /** @return The name of the artifact */
+    public String getName() {
+        return this.name;
+    }
+
+    /** @return The license of the artifact, null if the POM declares none */
+    public String getLicenseName() {
+        return this.licenseName;
+    }
+
+    @Override
+    public String toString() {
+        return "PomLicense [name=" + this.name + ", licenseName=" + this.licenseName + "]";
+    }
+}
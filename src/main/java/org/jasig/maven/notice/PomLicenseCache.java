@@ -0,0 +1,218 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.plugin.logging.Log;
+import org.jasig.maven.notice.util.AtomicFiles;
+import org.jasig.maven.notice.util.Checksums;
+import org.jasig.maven.notice.util.ConcurrentLoadingCache;
+import org.jasig.maven.notice.util.MemoryWeights;
+
+/**
+ * Persistent cache of the {@link PomLicense} read from artifact POMs. Entries are keyed by the
+ * artifact's groupId, artifactId and version and are only used while the checksum of the POM in
+ * the local repository matches the checksum recorded with the entry.
+ *
+ * <p>Entries are replaced atomically so several builds, in the same or in different JVMs, can
+ * share one cache directory. Entries are also kept in memory so a build daemon doesn't read them
+ * from disk in every build.
+ */
+class PomLicenseCache {
+    private static final String FORMAT_VERSION = "1";
+
+    /**
+     * Entries read or written by any cache instance, keyed by entry file and validated against
+     * the POM checksum. The entries outlive the build in a build daemon so they are bounded by
+     * weight and only held softly.
+     */
+    private static final ConcurrentLoadingCache<String, PomLicense> MEMORY_CACHE =
+            new ConcurrentLoadingCache<String, PomLicense>(
+                    50000,
+                    16L * 1024 * 1024,
+                    new ConcurrentLoadingCache.Weigher<PomLicense>() {
+                        public long weigh(PomLicense pomLicense) {
+                            return MemoryWeights.OBJECT * 2
+                                    + MemoryWeights.of(pomLicense.getName())
+                                    + MemoryWeights.of(pomLicense.getLicenseName());
+                        }
+                    },
+                    true);
+
+    private static final String VERSION_KEY = "version";
+    private static final String CHECKSUM_KEY = "pomChecksum";
+    private static final String NAME_KEY = "name";
+    private static final String LICENSE_KEY = "license";
+
+    private final Log logger;
+    private final File cacheDirectory;
+    private final ArtifactRepository localRepository;
+
+    PomLicenseCache(Log logger, File cacheDirectory, ArtifactRepository localRepository) {
+        this.logger = logger;
+        this.cacheDirectory = cacheDirectory;
+        this.localRepository = localRepository;
+    }
+
+    /**
+     * @param artifact The artifact to get the cached license for
+     * @return The cached license, null if there is no entry or the POM has changed
+     */
+    public PomLicense get(Artifact artifact) {
+        return this.get(artifact, this.getPomChecksum(artifact));
+    }
+
+    /**
+     * @param artifact The artifact to get the cached license for
+     * @param pomChecksum The checksum of the artifact's POM, see {@link #getPomChecksum(Artifact)}
+     * @return The cached license, null if there is no entry or the POM has changed
+     */
+    public PomLicense get(final Artifact artifact, final String pomChecksum) {
+        if (pomChecksum == null) {
+            return null;
+        }
+
+        try {
+            return MEMORY_CACHE.get(
+                    this.getEntryFile(artifact).getAbsolutePath(),
+                    pomChecksum,
+                    new Callable<PomLicense>() {
+                        public PomLicense call() {
+                            return readEntry(artifact, pomChecksum);
+                        }
+                    });
+        } catch (ExecutionException e) {
+            this.logger.debug("Failed to read license cache entry for: " + artifact, e.getCause());
+            return null;
+        }
+    }
+
+    /** @return The license stored on disk for the POM checksum, null if there is none */
+    protected PomLicense readEntry(Artifact artifact, String pomChecksum) {
+        final File entryFile = this.getEntryFile(artifact);
+        final Properties entry = new Properties();
+        try {
+            final byte[] content = AtomicFiles.readFile(entryFile);
+            if (content == null) {
+                return null;
+            }
+            entry.load(new ByteArrayInputStream(content));
+        } catch (IOException e) {
+            this.logger.debug("Failed to read license cache entry: " + entryFile, e);
+            return null;
+        }
+
+        final String name = entry.getProperty(NAME_KEY);
+        if (!FORMAT_VERSION.equals(entry.getProperty(VERSION_KEY))
+                || !pomChecksum.equals(entry.getProperty(CHECKSUM_KEY))
+                || name == null) {
+            return null;
+        }
+
+        return new PomLicense(name, entry.getProperty(LICENSE_KEY));
+    }
+
+    /**
+     * @param artifact The artifact the license was read for
+     * @param pomLicense The license read from the artifact's POM
+     */
+    public void put(Artifact artifact, PomLicense pomLicense) {
+        this.put(artifact, null, pomLicense);
+    }
+
+    /**
+     * @param artifact The artifact the license was read for
+     * @param pomChecksum The checksum the entry was looked up with, null to compute it as the POM
+     *     may only have been downloaded while the license was read
+     * @param pomLicense The license read from the artifact's POM
+     */
+    public void put(Artifact artifact, String pomChecksum, PomLicense pomLicense) {
+        final String entryChecksum =
+                pomChecksum != null ? pomChecksum : this.getPomChecksum(artifact);
+        if (entryChecksum == null || pomLicense.getName() == null) {
+            return;
+        }
+
+        final Properties entry = new Properties();
+        entry.setProperty(VERSION_KEY, FORMAT_VERSION);
+        entry.setProperty(CHECKSUM_KEY, entryChecksum);
+        entry.setProperty(NAME_KEY, pomLicense.getName());
+        if (pomLicense.getLicenseName() != null) {
+            entry.setProperty(LICENSE_KEY, pomLicense.getLicenseName());
+        }
+
+        final File entryFile = this.getEntryFile(artifact);
+        try {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            entry.store(content, artifact.getId());
+            AtomicFiles.replaceAtomically(entryFile, content.toByteArray());
+        } catch (IOException e) {
+            this.logger.debug("Failed to write license cache entry: " + entryFile, e);
+        }
+
+        MEMORY_CACHE.put(entryFile.getAbsolutePath(), entryChecksum, pomLicense);
+    }
+
+    /**
+     * @return The checksum of the artifact's POM in the local repository, null if the artifact
+     *     can't be cached.
+     */
+    protected String getPomChecksum(Artifact artifact) {
+        // Snapshot POMs can inherit from parents that change without the POM itself changing
+        if (artifact.isSnapshot()) {
+            return null;
+        }
+
+        final File pomFile = this.getPomFile(artifact);
+        if (!pomFile.isFile()) {
+            return null;
+        }
+
+        try {
+            return Checksums.sha1(pomFile);
+        } catch (IOException e) {
+            this.logger.debug("Failed to checksum POM: " + pomFile, e);
+            return null;
+        }
+    }
+
+    protected File getPomFile(Artifact artifact) {
+        return PomLicenseReader.getPomFile(
+                this.localRepository,
+                artifact.getGroupId(),
+                artifact.getArtifactId(),
+                artifact.getVersion());
+    }
+
+    protected File getEntryFile(Artifact artifact) {
+        final File artifactDirectory =
+                new File(
+                        new File(this.cacheDirectory, artifact.getGroupId()),
+                        artifact.getArtifactId());
+        return new File(artifactDirectory, artifact.getVersion() + ".properties");
+    }
+}
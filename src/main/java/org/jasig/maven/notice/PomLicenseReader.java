@@ -0,0 +1,252 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.model.License;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Reads the name and licenses of an artifact by stream parsing its POM from the local repository,
+ * avoiding the cost of building a full {@link org.apache.maven.project.MavenProject}. Parent POMs
+ * are only read when the artifact's POM declares no licenses, and the licenses found for each
+ * parent are memoized.
+ *
+ * <p>If the POM, or a parent POM it depends on, is not in the local repository or uses values
+ * that need interpolation no result is returned and the caller should fall back to the project
+ * builder.
+ */
+class PomLicenseReader {
+    /** Marker for parent POMs whose licenses can't be determined by this reader */
+    private static final List<License> UNRESOLVABLE =
+            Collections.unmodifiableList(new ArrayList<License>());
+
+    private final ConcurrentMap<String, List<License>> parentLicenses =
+            new ConcurrentHashMap<String, List<License>>();
+    private final XMLInputFactory xmlInputFactory;
+    private final Log logger;
+    private final ArtifactRepository localRepository;
+
+    PomLicenseReader(Log logger, ArtifactRepository localRepository) {
+        this.logger = logger;
+        this.localRepository = localRepository;
+
+        this.xmlInputFactory = XMLInputFactory.newInstance();
+        this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * @param artifact The artifact to read the license for
+     * @return The name and license from the POM, null if they could not be determined
+     */
+    public PomLicense read(Artifact artifact) {
+        final PomData pomData =
+                this.parsePom(
+                        artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion());
+        if (pomData == null) {
+            return null;
+        }
+
+        List<License> licenses = pomData.licenses;
+        if (licenses.isEmpty() && pomData.parentKey != null) {
+            licenses = this.getParentLicenses(pomData);
+            if (licenses == UNRESOLVABLE) {
+                return null;
+            }
+        }
+
+        // Like MavenProject.getName() fall back to the artifactId
+        final String name = pomData.name != null ? pomData.name : artifact.getArtifactId();
+        return new PomLicense(name, PomLicense.joinLicenses(licenses));
+    }
+
+    /** Get the licenses inherited from the parent of the POM, walking up as needed */
+    private List<License> getParentLicenses(PomData pomData) {
+        final List<License> cachedLicenses = this.parentLicenses.get(pomData.parentKey);
+        if (cachedLicenses != null) {
+            return cachedLicenses;
+        }
+
+        List<License> licenses = UNRESOLVABLE;
+        final PomData parentData =
+                this.parsePom(
+                        pomData.parentGroupId, pomData.parentArtifactId, pomData.parentVersion);
+        if (parentData != null) {
+            licenses = parentData.licenses;
+            if (licenses.isEmpty() && parentData.parentKey != null) {
+                licenses = this.getParentLicenses(parentData);
+            }
+        }
+
+        this.parentLicenses.putIfAbsent(pomData.parentKey, licenses);
+        return licenses;
+    }
+
+    /** @return The parsed POM data, null if the POM is not available or can't be used */
+    private PomData parsePom(String groupId, String artifactId, String version) {
+        final File pomFile = this.getPomFile(groupId, artifactId, version);
+        if (!pomFile.isFile()) {
+            return null;
+        }
+
+        try {
+            final InputStream pomStream = Files.newInputStream(pomFile.toPath());
+            try {
+                final XMLStreamReader reader =
+                        this.xmlInputFactory.createXMLStreamReader(pomStream);
+                try {
+                    return this.parsePom(reader);
+                } finally {
+                    reader.close();
+                }
+            } finally {
+                pomStream.close();
+            }
+        } catch (IOException e) {
+            this.logger.debug("Failed to read POM: " + pomFile, e);
+        } catch (XMLStreamException e) {
+            this.logger.debug("Failed to parse POM: " + pomFile, e);
+        }
+        return null;
+    }
+
+    private PomData parsePom(XMLStreamReader reader) throws XMLStreamException {
+        final PomData pomData = new PomData();
+        final List<String> path = new ArrayList<String>();
+        License license = null;
+
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                final String element = reader.getLocalName();
+                path.add(element);
+                final int depth = path.size();
+
+                if (depth == 2 && "name".equals(element)) {
+                    pomData.name = reader.getElementText().trim();
+                    path.remove(depth - 1);
+                } else if (depth == 3 && "parent".equals(path.get(1))) {
+                    final String value = reader.getElementText().trim();
+                    path.remove(depth - 1);
+                    if ("groupId".equals(element)) {
+                        pomData.parentGroupId = value;
+                    } else if ("artifactId".equals(element)) {
+                        pomData.parentArtifactId = value;
+                    } else if ("version".equals(element)) {
+                        pomData.parentVersion = value;
+                    }
+                } else if (depth == 3
+                        && "licenses".equals(path.get(1))
+                        && "license".equals(element)) {
+                    license = new License();
+                    pomData.licenses.add(license);
+                } else if (depth == 4 && license != null && "name".equals(element)) {
+                    license.setName(reader.getElementText().trim());
+                    path.remove(depth - 1);
+                } else if (depth > 2 && "licenses".equals(element)) {
+                    // Licenses declared in a profile, let the project builder decide
+                    return null;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (path.size() == 3 && "license".equals(path.get(2))) {
+                    license = null;
+                }
+                path.remove(path.size() - 1);
+            }
+        }
+
+        // Values that need interpolation can't be handled without building the project
+        if (needsInterpolation(pomData.name)) {
+            return null;
+        }
+        for (final License pomLicense : pomData.licenses) {
+            if (needsInterpolation(pomLicense.getName())) {
+                return null;
+            }
+        }
+
+        if (pomData.parentArtifactId != null) {
+            if (pomData.parentGroupId == null
+                    || pomData.parentVersion == null
+                    || needsInterpolation(pomData.parentGroupId)
+                    || needsInterpolation(pomData.parentArtifactId)
+                    || needsInterpolation(pomData.parentVersion)) {
+                return null;
+            }
+            pomData.parentKey =
+                    pomData.parentGroupId
+                            + ":"
+                            + pomData.parentArtifactId
+                            + ":"
+                            + pomData.parentVersion;
+        }
+
+        return pomData;
+    }
+
+    private static boolean needsInterpolation(String value) {
+        return value != null && value.contains("${");
+    }
+
+    protected File getPomFile(String groupId, String artifactId, String version) {
+        return getPomFile(this.localRepository, groupId, artifactId, version);
+    }
+
+    /** @return The location of the POM for the specified artifact in the local repository */
+    static File getPomFile(
+            ArtifactRepository localRepository, String groupId, String artifactId, String version) {
+        final Artifact pomArtifact =
+                new DefaultArtifact(
+                        groupId,
+                        artifactId,
+                        version,
+                        null,
+                        "pom",
+                        null,
+                        new DefaultArtifactHandler("pom"));
+        return new File(localRepository.getBasedir(), localRepository.pathOf(pomArtifact));
+    }
+
+    /** The subset of a POM needed to determine its name and licenses */
+    private static final class PomData {
+        private final List<License> licenses = new ArrayList<License>();
+        private String name;
+        private String parentGroupId;
+        private String parentArtifactId;
+        private String parentVersion;
+        private String parentKey;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import org.apache.maven.artifact.Artifact;
+import org.eclipse.aether.RepositorySystemSession;
+import org.jasig.maven.notice.util.SessionDataUtils;
+
+/**
+ * Registry of the licenses read from dependency POMs that is shared by every module of a build.
+ * Both completed and in-flight resolutions are tracked, so modules built concurrently wait on a
+ * single resolution of a shared artifact instead of repeating it.
+ */
+class PomLicenseRegistry {
+    private static final String SESSION_KEY = SessionDataUtils.getKey(PomLicenseRegistry.class);
+
+    private final ConcurrentMap<String, FutureTask<PomLicense>> pomLicenses =
+            new ConcurrentHashMap<String, FutureTask<PomLicense>>();
+
+    /**
+     * @param session The session of the current build, may be null
+     * @return The registry for the session, a new unshared registry if there is no session
+     */
+    public static PomLicenseRegistry getInstance(RepositorySystemSession session) {
+        return SessionDataUtils.getOrSet(session, SESSION_KEY, new PomLicenseRegistry());
+    }
+
+    /**
+     * Get the license for the artifact's POM, running the loader if no other module has resolved,
+     * or is resolving, the same POM. Each POM is loaded once per registry, a load that fails, or
+     * can't load the POM, is forgotten once it completes so later modules try again.
+     *
+     * @param artifact The artifact to get the POM license for
+     * @param loader Loads the license if it hasn't been resolved yet
+     * @return The license loaded for the artifact's POM, may be null
+     */
+    public PomLicense resolve(Artifact artifact, Callable<PomLicense> loader) {
+        final String pomKey =
+                artifact.getGroupId()
+                        + ":"
+                        + artifact.getArtifactId()
+                        + ":"
+                        + artifact.getVersion();
+
+        FutureTask<PomLicense> resolution = this.pomLicenses.get(pomKey);
+        if (resolution == null) {
+            final FutureTask<PomLicense> newResolution = new FutureTask<PomLicense>(loader);
+            resolution = this.pomLicenses.putIfAbsent(pomKey, newResolution);
+            if (resolution == null) {
+                resolution = newResolution;
+                resolution.run();
+            }
+        }
+
+        try {
+            final PomLicense pomLicense = resolution.get();
+            if (pomLicense == null) {
+                this.pomLicenses.remove(pomKey, resolution);
+            }
+            return pomLicense;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    "Interrupted while resolving license for: " + pomKey, e);
+        } catch (ExecutionException e) {
+            this.pomLicenses.remove(pomKey, resolution);
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Failed to resolve license for: " + pomKey, cause);
+        }
+    }
+}
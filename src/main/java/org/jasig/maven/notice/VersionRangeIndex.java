@@ -0,0 +1,114 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.Restriction;
+import org.apache.maven.artifact.versioning.VersionRange;
+
+/**
+ * Interval index over Maven version ranges. The bounds of all ranges split the version line into
+ * elementary segments, the bound versions themselves and the open intervals between them, and
+ * each segment records the lowest ordinal of the ranges covering it. A lookup is a binary search
+ * over the bounds.
+ */
+class VersionRangeIndex {
+    private final ArtifactVersion[] bounds;
+    private final int[] segmentOrdinals;
+
+    /**
+     * @param ranges The ranges to index
+     * @param ordinals The ordinal of each range, lookups return the lowest matching ordinal
+     */
+    VersionRangeIndex(List<VersionRange> ranges, List<Integer> ordinals) {
+        final List<ArtifactVersion> boundList = new ArrayList<ArtifactVersion>();
+        for (final VersionRange range : ranges) {
+            for (final Restriction restriction : range.getRestrictions()) {
+                if (restriction.getLowerBound() != null) {
+                    boundList.add(restriction.getLowerBound());
+                }
+                if (restriction.getUpperBound() != null) {
+                    boundList.add(restriction.getUpperBound());
+                }
+            }
+        }
+        Collections.sort(boundList);
+
+        // Drop duplicate bounds, versions like 1.0 and 1.0.0 are equal
+        final List<ArtifactVersion> uniqueBounds = new ArrayList<ArtifactVersion>();
+        for (final ArtifactVersion bound : boundList) {
+            if (uniqueBounds.isEmpty()
+                    || uniqueBounds.get(uniqueBounds.size() - 1).compareTo(bound) != 0) {
+                uniqueBounds.add(bound);
+            }
+        }
+        this.bounds = uniqueBounds.toArray(new ArtifactVersion[uniqueBounds.size()]);
+
+        // Segment 2i + 1 is bound i, segment 2i is the open interval below bound i
+        this.segmentOrdinals = new int[this.bounds.length * 2 + 1];
+        Arrays.fill(this.segmentOrdinals, Integer.MAX_VALUE);
+
+        for (int i = 0; i < ranges.size(); i++) {
+            final int ordinal = ordinals.get(i);
+            for (final Restriction restriction : ranges.get(i).getRestrictions()) {
+                final int firstSegment;
+                if (restriction.getLowerBound() == null) {
+                    firstSegment = 0;
+                } else {
+                    final int bound = 2 * this.findBound(restriction.getLowerBound()) + 1;
+                    firstSegment = restriction.isLowerBoundInclusive() ? bound : bound + 1;
+                }
+
+                final int lastSegment;
+                if (restriction.getUpperBound() == null) {
+                    lastSegment = this.segmentOrdinals.length - 1;
+                } else {
+                    final int bound = 2 * this.findBound(restriction.getUpperBound()) + 1;
+                    lastSegment = restriction.isUpperBoundInclusive() ? bound : bound - 1;
+                }
+
+                for (int segment = firstSegment; segment <= lastSegment; segment++) {
+                    this.segmentOrdinals[segment] =
+                            Math.min(this.segmentOrdinals[segment], ordinal);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param version The version to find
+     * @return The lowest ordinal of the ranges containing the version, {@link Integer#MAX_VALUE} if
+     *     no range contains it.
+     */
+    public int match(ArtifactVersion version) {
+        final int index = Arrays.binarySearch(this.bounds, version);
+        if (index >= 0) {
+            return this.segmentOrdinals[2 * index + 1];
+        }
+        return this.segmentOrdinals[2 * (-index - 1)];
+    }
+
+    private int findBound(ArtifactVersion version) {
+        return Arrays.binarySearch(this.bounds, version);
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.MojoFailureException;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+
+/**
+ * Resolves resources stored in artifacts, referenced as {@code
+ * groupId:artifactId:version[:classifier]!/path/in/jar}. The artifact is resolved through the
+ * {@link RepositorySystem} and the entry is read from the jar with a {@link ZipFile}, which only
+ * reads the central directory and the entry itself.
+ *
+ * <p>Entries are cached by the SHA-1 checksum of the artifact, so the same jar is only read once
+ * no matter how many modules or builds reference it.
+ */
+public final class ArtifactResourceResolver {
+    private static final Pattern ARTIFACT_RESOURCE =
+            Pattern.compile(
+                    "([^:/\\\\!]+):([^:/\\\\!]+):([^:/\\\\!]+)(?::([^:/\\\\!]+))?!/(.+)");
+
+    /** SHA-1 of artifact files, reloaded if the file's fingerprint changes */
+    private static final ConcurrentLoadingCache<String, String> ARTIFACT_CHECKSUM_CACHE =
+            new ConcurrentLoadingCache<String, String>(32);
+
+    /** Entry contents keyed by the artifact's SHA-1 and the entry path, held softly */
+    private static final ConcurrentLoadingCache<String, byte[]> ENTRY_CACHE =
+            new ConcurrentLoadingCache<String, byte[]>(
+                    32,
+                    16L * 1024 * 1024,
+                    new ConcurrentLoadingCache.Weigher<byte[]>() {
+                        public long weigh(byte[] content) {
+                            return MemoryWeights.of(content);
+                        }
+                    },
+                    true);
+
+    private final RepositorySystem repositorySystem;
+    private final RepositorySystemSession session;
+    private final List<RemoteRepository> repositories;
+
+    /**
+     * @param repositorySystem Resolves the artifacts
+     * @param session The repository session
+     * @param repositories Remote repositories to resolve the artifacts from
+     */
+    public ArtifactResourceResolver(
+            RepositorySystem repositorySystem,
+            RepositorySystemSession session,
+            List<RemoteRepository> repositories) {
+        this.repositorySystem = repositorySystem;
+        this.session = session;
+        this.repositories = repositories;
+    }
+
+    /**
+     * @param resource The resource name
+     * @return true if the resource references an entry of an artifact
+     */
+    public static boolean isArtifactResource(String resource) {
+        return ARTIFACT_RESOURCE.matcher(resource).matches();
+    }
+
+    /**
+     * Resolve the artifact and read the entry from it.
+     *
+     * @param resource The artifact resource, see {@link #isArtifactResource(String)}
+     * @return A jar URL for the entry, its content is served from memory
+     * @throws MojoFailureException If the artifact can't be resolved or doesn't contain the entry
+     */
+    public URL resolve(String resource) throws MojoFailureException {
+        final Matcher matcher = ARTIFACT_RESOURCE.matcher(resource);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not an artifact resource: " + resource);
+        }
+
+        final Artifact artifact =
+                new DefaultArtifact(
+                        matcher.group(1),
+                        matcher.group(2),
+                        matcher.group(4),
+                        "jar",
+                        matcher.group(3));
+        final File file;
+        try {
+            file =
+                    this.repositorySystem
+                            .resolveArtifact(
+                                    this.session,
+                                    new ArtifactRequest(artifact, this.repositories, null))
+                            .getArtifact()
+                            .getFile();
+        } catch (ArtifactResolutionException e) {
+            throw new MojoFailureException(
+                    "Failed to resolve " + artifact + " for resource: " + resource, e);
+        }
+
+        final String path = matcher.group(5);
+        final byte[] content;
+        try {
+            content = readEntry(file, path);
+        } catch (IOException e) {
+            throw new MojoFailureException(
+                    "Failed to read '" + path + "' from " + file + " for resource: " + resource, e);
+        }
+        if (content == null) {
+            throw new MojoFailureException(
+                    "Resource not found in " + artifact + ": " + resource);
+        }
+
+        try {
+            return new URL(null, "jar:" + file.toURI() + "!/" + path, new EntryHandler(content));
+        } catch (MalformedURLException e) {
+            throw new MojoFailureException("Failed to create URL for resource: " + resource, e);
+        }
+    }
+
+    /**
+     * @param file The jar file
+     * @param path The entry path
+     * @return The entry's content, null if the jar doesn't contain it
+     * @throws IOException If the jar can't be read
+     */
+    static byte[] readEntry(final File file, final String path) throws IOException {
+        final String checksum =
+                get(
+                        ARTIFACT_CHECKSUM_CACHE,
+                        file.getAbsolutePath(),
+                        file.lastModified() + ":" + file.length(),
+                        new Callable<String>() {
+                            public String call() throws IOException {
+                                return Checksums.sha1(file);
+                            }
+                        });
+
+        return get(
+                ENTRY_CACHE,
+                checksum + "!/" + path,
+                null,
+                new Callable<byte[]>() {
+                    public byte[] call() throws IOException {
+                        final ZipFile zipFile = new ZipFile(file);
+                        try {
+                            final ZipEntry entry = zipFile.getEntry(path);
+                            if (entry == null || entry.isDirectory()) {
+                                return null;
+                            }
+                            final InputStream entryStream = zipFile.getInputStream(entry);
+                            try {
+                                return IOUtils.toByteArray(entryStream);
+                            } finally {
+                                entryStream.close();
+                            }
+                        } finally {
+                            zipFile.close();
+                        }
+                    }
+                });
+    }
+
+    private static <V> V get(
+            ConcurrentLoadingCache<String, V> cache,
+            String key,
+            String fingerprint,
+            Callable<V> loader)
+            throws IOException {
+        try {
+            return cache.get(key, fingerprint, loader);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /** Serves the entry content read from the jar */
+    private static final class EntryHandler extends URLStreamHandler {
+        private final byte[] content;
+
+        EntryHandler(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        protected URLConnection openConnection(URL url) {
+            return new URLConnection(url) {
+                @Override
+                public void connect() {
+                    this.connected = true;
+                }
+
+                @Override
+                public InputStream getInputStream() {
+                    return new ByteArrayInputStream(content);
+                }
+
+                @Override
+                public int getContentLength() {
+                    return content.length;
+                }
+            };
+        }
+    }
+}
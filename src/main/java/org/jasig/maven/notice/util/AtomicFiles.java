@@ -0,0 +1,93 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Reads and replaces small files that are shared by concurrent builds, including separate JVMs,
+ * working against the same directory. Files are replaced by moving a complete temporary file over
+ * them, so readers see either the old or the new content and a writer that is killed never leaves
+ * a partially written file behind.
+ */
+public final class AtomicFiles {
+    /**
+     * @param file The file to read
+     * @return The contents of the file, null if it does not exist
+     * @throws IOException If the file could not be read
+     */
+    public static byte[] readFile(File file) throws IOException {
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replace the contents of the file, parent directories are created as needed. The content is
+     * written to a temporary file in the same directory that is then moved over the file.
+     *
+     * @param file The file to write
+     * @param content The new contents of the file
+     * @throws IOException If the file could not be written
+     */
+    public static void replaceAtomically(File file, byte[] content) throws IOException {
+        final File directory = file.getAbsoluteFile().getParentFile();
+        FileUtils.forceMkdir(directory);
+
+        final File tempFile = File.createTempFile("." + file.getName() + "-", ".tmp", directory);
+        try {
+            final FileChannel channel =
+                    FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE);
+            try {
+                final ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+
+            try {
+                Files.move(
+                        tempFile.toPath(),
+                        file.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private AtomicFiles() {}
+}
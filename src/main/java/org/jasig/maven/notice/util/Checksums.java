@@ -0,0 +1,116 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Utilities for computing content checksums
+ */
+public final class Checksums {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * @param algorithm The {@link MessageDigest} algorithm name
+     * @return A new digest for the algorithm
+     */
+    public static MessageDigest getDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No MessageDigest available for: " + algorithm, e);
+        }
+    }
+
+    /**
+     * @param file The file to checksum
+     * @return The hex encoded SHA-1 checksum of the file's contents
+     * @throws IOException If the file could not be read
+     */
+    public static String sha1(File file) throws IOException {
+        return sha1(Files.newInputStream(file.toPath()));
+    }
+
+    /**
+     * @param url The URL to checksum
+     * @return The hex encoded SHA-1 checksum of the content at the URL
+     * @throws IOException If the URL could not be read
+     */
+    public static String sha1(URL url) throws IOException {
+        return sha1(url.openStream());
+    }
+
+    /**
+     * @param inputStream The stream to checksum, closed once read
+     * @return The hex encoded SHA-1 checksum of the stream's contents
+     * @throws IOException If the stream could not be read
+     */
+    public static String sha1(InputStream inputStream) throws IOException {
+        return checksum(inputStream, "SHA-1");
+    }
+
+    /**
+     * @param file The file to checksum
+     * @return The hex encoded SHA-256 checksum of the file's contents
+     * @throws IOException If the file could not be read
+     */
+    public static String sha256(File file) throws IOException {
+        return checksum(Files.newInputStream(file.toPath()), "SHA-256");
+    }
+
+    /**
+     * @param inputStream The stream to checksum, closed once read
+     * @param algorithm The {@link MessageDigest} algorithm name
+     * @return The hex encoded checksum of the stream's contents
+     * @throws IOException If the stream could not be read
+     */
+    public static String checksum(InputStream inputStream, String algorithm) throws IOException {
+        final MessageDigest digest = getDigest(algorithm);
+        try {
+            final byte[] buffer = new byte[8192];
+            for (int read = inputStream.read(buffer); read >= 0; read = inputStream.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @param bytes Bytes to encode
+     * @return Lower case hex representation of the bytes
+     */
+    public static String toHex(byte[] bytes) {
+        final char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private Checksums() {}
+}
@@ -0,0 +1,490 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache that loads each value at most once. Concurrent requests for a key that is being
+ * loaded wait for the in-flight load instead of repeating it, and no lock is held while a value is
+ * loaded so loads of different keys never block each other.
+ *
+ * <p>Each entry carries a fingerprint of the source it was loaded from, a request with a different
+ * fingerprint reloads the value. When the capacity or the maximum weight is exceeded the least
+ * recently used entries are evicted until both are back under a low-water mark, so the entries are
+ * scanned once per batch of evictions rather than on every load. Failed loads are not cached.
+ *
+ * <p>Caches kept in static fields live as long as the plugin's class loader, which in a build
+ * daemon is many builds. Such caches should be bounded by the estimated memory weight of their
+ * values and hold them with soft references, values collected by the garbage collector are
+ * loaded again when next requested.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public final class ConcurrentLoadingCache<K, V> {
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<K, Entry<V>>();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadFailureCount = new AtomicLong();
+    private final AtomicLong totalLoadTime = new AtomicLong();
+
+    /** Weight of the loaded entries that are still cached */
+    private final AtomicLong weight = new AtomicLong();
+
+    private final Weigher<? super V> weigher;
+    private final boolean softValues;
+    private volatile int capacity;
+    private volatile long maxWeight;
+
+    /** @param capacity Maximum number of entries to keep */
+    public ConcurrentLoadingCache(int capacity) {
+        this(capacity, Long.MAX_VALUE, null, false);
+    }
+
+    /**
+     * @param capacity Maximum number of entries to keep
+     * @param maxWeight Maximum total weight of the entries to keep
+     * @param weigher Estimates the weight of each value, if null every value weighs nothing
+     * @param softValues If true values are held with soft references
+     */
+    public ConcurrentLoadingCache(
+            int capacity, long maxWeight, Weigher<? super V> weigher, boolean softValues) {
+        this.setCapacity(capacity);
+        this.setMaxWeight(maxWeight);
+        this.weigher = weigher;
+        this.softValues = softValues;
+    }
+
+    /** @param capacity Maximum number of entries to keep, excess entries are evicted on next load */
+    public void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /** @return Maximum number of entries to keep */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /** @param maxWeight Maximum total weight, excess entries are evicted on next load */
+    public void setMaxWeight(long maxWeight) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("maxWeight must not be negative: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    /** @return Maximum total weight of the entries to keep */
+    public long getMaxWeight() {
+        return this.maxWeight;
+    }
+
+    /**
+     * Get the value for the key, loading it if it isn't cached, was loaded from a source with a
+     * different fingerprint or was garbage collected.
+     *
+     * @param key The cache key
+     * @param fingerprint Identifies the current state of the value's source, may be null
+     * @param loader Loads the value, only called if no current value is cached or being loaded
+     * @return The cached or loaded value
+     * @throws ExecutionException If the load failed, the cause is the exception the loader threw
+     */
+    public V get(K key, Object fingerprint, Callable<V> loader) throws ExecutionException {
+        while (true) {
+            final Entry<V> entry = this.entries.get(key);
+            if (entry != null && entry.isCurrent(fingerprint)) {
+                final Value<V> holder = this.getValue(entry);
+                final V value = holder.get();
+                if (value != null || !holder.isCleared()) {
+                    this.hitCount.incrementAndGet();
+                    entry.lastAccess = this.clock.incrementAndGet();
+                    return value;
+                }
+            }
+
+            // Missing, stale and collected entries are replaced
+            final ValueLoader valueLoader = new ValueLoader(loader);
+            final Entry<V> newEntry =
+                    new Entry<V>(fingerprint, new FutureTask<Value<V>>(valueLoader));
+            final boolean added;
+            if (entry == null) {
+                added = this.entries.putIfAbsent(key, newEntry) == null;
+            } else {
+                added = this.entries.replace(key, entry, newEntry);
+                if (added) {
+                    this.uncountWeight(entry);
+                }
+            }
+
+            if (added) {
+                this.missCount.incrementAndGet();
+                this.load(key, newEntry);
+                this.evict();
+                this.getValue(newEntry);
+                return valueLoader.takeValue();
+            }
+
+            // Another thread added or replaced the entry first, use theirs
+        }
+    }
+
+    /**
+     * Cache a value that was loaded elsewhere, replacing any cached value for the key.
+     *
+     * @param key The cache key
+     * @param fingerprint Identifies the current state of the value's source, may be null
+     * @param value The value to cache
+     */
+    public void put(K key, Object fingerprint, final V value) {
+        final Entry<V> entry =
+                new Entry<V>(
+                        fingerprint,
+                        new FutureTask<Value<V>>(
+                                new ValueLoader(
+                                        new Callable<V>() {
+                                            public V call() {
+                                                return value;
+                                            }
+                                        })));
+        entry.value.run();
+        entry.lastAccess = this.clock.incrementAndGet();
+        this.countWeight(entry, entry.getLoadedValue().getWeight());
+        final Entry<V> replaced = this.entries.put(key, entry);
+        if (replaced != null) {
+            this.uncountWeight(replaced);
+        }
+        this.evict();
+    }
+
+    /** Remove every entry */
+    public void clear() {
+        for (final Map.Entry<K, Entry<V>> entry : this.entries.entrySet()) {
+            this.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /** @return The number of cached entries, including in-flight loads */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /** @return The total weight of the loaded entries */
+    public long getWeight() {
+        return this.weight.get();
+    }
+
+    /** @return A snapshot of the cache usage counters */
+    public Statistics getStatistics() {
+        return new Statistics(
+                this.hitCount.get(),
+                this.missCount.get(),
+                this.loadFailureCount.get(),
+                this.totalLoadTime.get());
+    }
+
+    private void load(K key, Entry<V> entry) {
+        final long start = System.nanoTime();
+        entry.value.run();
+        this.totalLoadTime.addAndGet(System.nanoTime() - start);
+        entry.lastAccess = this.clock.incrementAndGet();
+
+        final Value<V> holder = entry.getLoadedValue();
+        if (holder == null) {
+            // Don't cache failures, the next request loads again
+            this.loadFailureCount.incrementAndGet();
+            this.entries.remove(key, entry);
+        } else {
+            this.countWeight(entry, holder.getWeight());
+            if (this.entries.get(key) != entry) {
+                // Replaced or removed while loading, the removal may have missed the weight
+                this.uncountWeight(entry);
+            }
+        }
+    }
+
+    private void countWeight(Entry<V> entry, long weight) {
+        entry.countedWeight.set(weight);
+        this.weight.addAndGet(weight);
+    }
+
+    /** Subtract the entry's weight once, however many threads remove it */
+    private void uncountWeight(Entry<V> entry) {
+        this.weight.addAndGet(-entry.countedWeight.getAndSet(0));
+    }
+
+    private void remove(K key, Entry<V> entry) {
+        if (this.entries.remove(key, entry)) {
+            this.uncountWeight(entry);
+        }
+    }
+
+    private void evict() {
+        final int capacity = this.capacity;
+        final long maxWeight = this.maxWeight;
+        if (this.entries.size() <= capacity && this.weight.get() <= maxWeight) {
+            return;
+        }
+
+        // Evict down to the low-water marks so the next few loads don't scan again
+        final int lowCapacity = capacity - capacity / 8;
+        final long lowWeight = maxWeight - maxWeight / 8;
+
+        final List<Map.Entry<K, Entry<V>>> candidates = new ArrayList<Map.Entry<K, Entry<V>>>();
+        for (final Map.Entry<K, Entry<V>> candidate : this.entries.entrySet()) {
+            // Never evict in-flight loads, their waiters would reload
+            final Value<V> holder = candidate.getValue().getLoadedValue();
+            if (holder == null) {
+                continue;
+            }
+            if (holder.isCleared()) {
+                this.remove(candidate.getKey(), candidate.getValue());
+                continue;
+            }
+            candidates.add(candidate);
+        }
+
+        Collections.sort(
+                candidates,
+                new Comparator<Map.Entry<K, Entry<V>>>() {
+                    public int compare(Map.Entry<K, Entry<V>> a, Map.Entry<K, Entry<V>> b) {
+                        final long aAccess = a.getValue().lastAccess;
+                        final long bAccess = b.getValue().lastAccess;
+                        return aAccess < bAccess ? -1 : (aAccess == bAccess ? 0 : 1);
+                    }
+                });
+        for (final Map.Entry<K, Entry<V>> eldest : candidates) {
+            if (this.entries.size() <= lowCapacity && this.weight.get() <= lowWeight) {
+                return;
+            }
+            this.remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private Value<V> getValue(Entry<V> entry) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return entry.value.get();
+                } catch (InterruptedException e) {
+                    // Keep waiting, the loading thread isn't affected by our interruption
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Estimates the memory used by a cached value
+     *
+     * @param <V> Value type
+     */
+    public interface Weigher<V> {
+        /**
+         * @param value The loaded value, never null
+         * @return The estimated weight of the value, in bytes
+         */
+        long weigh(V value);
+    }
+
+    /**
+     * Weighs the loaded value and references it as configured. The loading thread takes the
+     * value from the loader so a soft reference can't be cleared before it is returned.
+     */
+    private final class ValueLoader implements Callable<Value<V>> {
+        private final Callable<V> loader;
+        private V value;
+
+        ValueLoader(Callable<V> loader) {
+            this.loader = loader;
+        }
+
+        public Value<V> call() throws Exception {
+            final V value = this.loader.call();
+            this.value = value;
+            if (value == null) {
+                return new StrongValue<V>(null, 0);
+            }
+
+            final long weight = weigher != null ? weigher.weigh(value) : 0;
+            if (softValues) {
+                return new SoftValue<V>(value, weight);
+            }
+            return new StrongValue<V>(value, weight);
+        }
+
+        V takeValue() {
+            final V value = this.value;
+            this.value = null;
+            return value;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final Object fingerprint;
+        private final FutureTask<Value<V>> value;
+        /** Weight added to the cache total, taken back when the entry is removed */
+        private final AtomicLong countedWeight = new AtomicLong();
+        private volatile long lastAccess;
+
+        Entry(Object fingerprint, FutureTask<Value<V>> value) {
+            this.fingerprint = fingerprint;
+            this.value = value;
+        }
+
+        boolean isCurrent(Object fingerprint) {
+            return this.fingerprint == null
+                    ? fingerprint == null
+                    : this.fingerprint.equals(fingerprint);
+        }
+
+        /** @return The loaded value, null if it is still loading or the load failed */
+        Value<V> getLoadedValue() {
+            if (!this.value.isDone()) {
+                return null;
+            }
+            try {
+                return this.value.get();
+            } catch (ExecutionException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /** Holds a loaded value and its weight */
+    private interface Value<V> {
+        V get();
+
+        /** @return true if the value was garbage collected */
+        boolean isCleared();
+
+        long getWeight();
+    }
+
+    private static final class StrongValue<V> implements Value<V> {
+        private final V value;
+        private final long weight;
+
+        StrongValue(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+
+        public V get() {
+            return this.value;
+        }
+
+        public boolean isCleared() {
+            return false;
+        }
+
+        public long getWeight() {
+            return this.weight;
+        }
+    }
+
+    private static final class SoftValue<V> extends SoftReference<V> implements Value<V> {
+        private final long weight;
+
+        SoftValue(V value, long weight) {
+            super(value);
+            this.weight = weight;
+        }
+
+        public boolean isCleared() {
+            return this.get() == null;
+        }
+
+        public long getWeight() {
+            return this.weight;
+        }
+    }
+
+    /**
+     * Counters describing how a cache has been used
+     */
+    public static final class Statistics {
+        private final long hitCount;
+        private final long missCount;
+        private final long loadFailureCount;
+        private final long totalLoadTime;
+
+        Statistics(long hitCount, long missCount, long loadFailureCount, long totalLoadTime) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadFailureCount = loadFailureCount;
+            this.totalLoadTime = totalLoadTime;
+        }
+
+        /** @return Number of requests served by a cached or in-flight value */
+        public long getHitCount() {
+            return this.hitCount;
+        }
+
+        /** @return Number of requests that loaded a value */
+        public long getMissCount() {
+            return this.missCount;
+        }
+
+        /** @return Number of loads that failed */
+        public long getLoadFailureCount() {
+            return this.loadFailureCount;
+        }
+
+        /** @return Total time spent loading values, in nanoseconds */
+        public long getTotalLoadTime() {
+            return this.totalLoadTime;
+        }
+
+        @Override
+        public String toString() {
+            return "hits="
+                    + this.hitCount
+                    + ", misses="
+                    + this.missCount
+                    + ", loadFailures="
+                    + this.loadFailureCount
+                    + ", loadTime="
+                    + (this.totalLoadTime / 1000000)
+                    + "ms";
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+/**
+ * Rough estimates of the heap used by cached values, used to bound caches by weight instead of
+ * entry count. The estimates assume a 64 bit JVM with compressed references, they only need to
+ * be proportional to the real sizes.
+ */
+public final class MemoryWeights {
+    /** Header and padding of a small object */
+    public static final long OBJECT = 16;
+
+    /** A reference field or array element */
+    public static final long REFERENCE = 4;
+
+    /** A hash map entry, including its share of the table */
+    public static final long MAP_ENTRY = 48;
+
+    /**
+     * @param string The string to weigh, may be null
+     * @return The weight of the string and its characters
+     */
+    public static long of(String string) {
+        return string == null ? 0 : OBJECT + 24 + 2L * string.length();
+    }
+
+    /**
+     * @param bytes The array to weigh, may be null
+     * @return The weight of the array
+     */
+    public static long of(byte[] bytes) {
+        return bytes == null ? 0 : OBJECT + bytes.length;
+    }
+
+    private MemoryWeights() {}
+}
@@ -18,27 +18,48 @@
  */
 package org.jasig.maven.notice.util;
 
+import java.io.Closeable;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.Callable;
 import org.apache.maven.plugin.MojoFailureException;
 
 /**
  * @author Eric Dalquist
  * @version $Revision$
  */
-public interface ResourceFinder {
+public interface ResourceFinder extends Closeable {
 
     public void setCompileClassPath(List<String> classpath);
 
+    /**
+     * Set the compile classpath lazily, the provider is only called the first time a resource
+     * isn't found in the filesystem.
+     *
+     * @param classpathProvider Provides the compile classpath elements
+     */
+    public void setCompileClassPath(Callable<List<String>> classpathProvider);
+
     public void setPluginClassPath(ClassLoader classLoader);
 
+    /**
+     * @param urlResourceCache Cache used for HTTP(S) resources, if null they are read directly
+     */
+    public void setUrlResourceCache(UrlResourceCache urlResourceCache);
+
+    /**
+     * @param artifactResourceResolver Resolves artifact resources, if null they aren't supported
+     */
+    public void setArtifactResourceResolver(ArtifactResourceResolver artifactResourceResolver);
+
     /**
      * Find a resource by searching:<br>
+     * 0. As an artifact resource, see {@link ArtifactResourceResolver}<br>
      * 1. In the filesystem, relative to basedir<br>
      * 2. In the filesystem, as an absolute path (or relative to current execution directory)<br>
      * 3. In project classpath<br>
      * 4. In plugin classpath<br>
-     * 5. As a URL
+     * 5. As a URL, HTTP(S) URLs are fetched into the {@link UrlResourceCache} if one is set
      *
      * @param resource The resource to get
      * @return A valid URL
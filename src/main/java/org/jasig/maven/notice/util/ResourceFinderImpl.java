@@ -19,9 +19,13 @@
 package org.jasig.maven.notice.util;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.project.MavenProject;
 
@@ -31,36 +35,95 @@ import org.apache.maven.project.MavenProject;
  */
 public final class ResourceFinderImpl implements ResourceFinder {
     private final MavenProject project;
+    private final ConcurrentMap<String, URL> resolvedResources;
+    private Callable<List<String>> compileClassPathProvider;
     private CustomClassLoader compileClassPath;
-    private CustomClassLoader pluginClassPath;
+    private ClassLoader pluginClassPath;
+    private UrlResourceCache urlResourceCache;
+    private ArtifactResourceResolver artifactResourceResolver;
 
     public ResourceFinderImpl(MavenProject project) {
+        this(project, new ConcurrentHashMap<String, URL>());
+    }
+
+    /**
+     * @param project The project to find resources for
+     * @param resolvedResources Found resource URLs keyed by project basedir and resource name, can
+     *     be shared by the finders of every project in the reactor
+     */
+    public ResourceFinderImpl(MavenProject project, ConcurrentMap<String, URL> resolvedResources) {
         this.project = project;
+        this.resolvedResources = resolvedResources;
     }
 
     /* (non-Javadoc)
      * @see org.jasig.maven.notice.util.ResourceFinder#setCompileClassPath(java.util.List)
      */
-    public void setCompileClassPath(List<String> classpath) {
-        compileClassPath = new CustomClassLoader();
-        if (classpath != null) {
-            for (String absolutePath : classpath) {
-                compileClassPath.addFolder(absolutePath);
-            }
-        }
+    public void setCompileClassPath(final List<String> classpath) {
+        this.setCompileClassPath(
+                new Callable<List<String>>() {
+                    public List<String> call() {
+                        return classpath;
+                    }
+                });
+    }
+
+    /* (non-Javadoc)
+     * @see org.jasig.maven.notice.util.ResourceFinder#setCompileClassPath(Callable)
+     */
+    public synchronized void setCompileClassPath(Callable<List<String>> classpathProvider) {
+        this.closeCompileClassPath();
+        this.compileClassPathProvider = classpathProvider;
     }
 
     /* (non-Javadoc)
      * @see org.jasig.maven.notice.util.ResourceFinder#setPluginClassPath(java.lang.ClassLoader)
      */
     public void setPluginClassPath(ClassLoader classLoader) {
-        pluginClassPath = new CustomClassLoader(classLoader);
+        pluginClassPath = classLoader;
+    }
+
+    /* (non-Javadoc)
+     * @see org.jasig.maven.notice.util.ResourceFinder#setUrlResourceCache(UrlResourceCache)
+     */
+    public void setUrlResourceCache(UrlResourceCache urlResourceCache) {
+        this.urlResourceCache = urlResourceCache;
+    }
+
+    /* (non-Javadoc)
+     * @see ResourceFinder#setArtifactResourceResolver(ArtifactResourceResolver)
+     */
+    public void setArtifactResourceResolver(ArtifactResourceResolver artifactResourceResolver) {
+        this.artifactResourceResolver = artifactResourceResolver;
     }
 
     /* (non-Javadoc)
      * @see org.jasig.maven.notice.util.ResourceFinder#findResource(java.lang.String)
      */
     public URL findResource(String resource) throws MojoFailureException {
+        final String key = project.getBasedir() + "|" + resource;
+        final URL resolved = this.resolvedResources.get(key);
+        if (resolved != null) {
+            return resolved;
+        }
+
+        final URL res = this.locateResource(resource);
+        final URL existing = this.resolvedResources.putIfAbsent(key, res);
+        return existing != null ? existing : res;
+    }
+
+    /** Closes the compile classpath loader if it was created */
+    public synchronized void close() throws IOException {
+        this.closeCompileClassPath();
+    }
+
+    private URL locateResource(String resource) throws MojoFailureException {
+        // groupId:artifactId:version[:classifier]!/path resources are read from the artifact
+        if (artifactResourceResolver != null
+                && ArtifactResourceResolver.isArtifactResource(resource)) {
+            return artifactResourceResolver.resolve(resource);
+        }
+
         // first search relatively to the base directory
         URL res = this.searchProjectTree(project, resource);
         if (res != null) {
@@ -77,29 +140,80 @@ public final class ResourceFinderImpl implements ResourceFinder {
         String cpResource = resource.startsWith("/") ? resource.substring(1) : resource;
 
         // tries compile claspath of projet
-        res = compileClassPath.getResource(cpResource);
+        res = this.getCompileClassPath().getResource(cpResource);
         if (res != null) {
             return res;
         }
 
         // tries this plugin classpath
-        res = pluginClassPath.getResource(cpResource);
-        if (res != null) {
-            return res;
+        if (pluginClassPath != null) {
+            res = pluginClassPath.getResource(cpResource);
+            if (res != null) {
+                return res;
+            }
         }
 
         // otherwise, tries to return a valid URL
         try {
             res = new URL(resource);
-            res.openStream().close();
-            return res;
-        } catch (Exception e) {
+        } catch (MalformedURLException e) {
+            res = null;
+        }
+
+        // fetch HTTP(S) URLs once into the cache instead of probing them and reading them again
+        if (res != null && urlResourceCache != null && UrlResourceCache.isCacheable(res)) {
+            try {
+                return urlResourceCache.get(res).toURI().toURL();
+            } catch (IOException e) {
+                throw new MojoFailureException("Failed to fetch resource: " + resource, e);
+            }
+        }
+
+        if (res != null) {
+            try {
+                res.openStream().close();
+                return res;
+            } catch (Exception e) {
+            }
         }
 
         throw new MojoFailureException(
                 "Resource not found in file system, classpath or URL: " + resource);
     }
 
+    /** Create the compile classpath loader the first time it is needed */
+    private synchronized CustomClassLoader getCompileClassPath() throws MojoFailureException {
+        if (compileClassPath == null) {
+            final List<String> classpath;
+            try {
+                classpath =
+                        compileClassPathProvider != null ? compileClassPathProvider.call() : null;
+            } catch (Exception e) {
+                throw new MojoFailureException(
+                        "Failed to get the compile classpath of: " + project.getId(), e);
+            }
+
+            compileClassPath = new CustomClassLoader();
+            if (classpath != null) {
+                for (String absolutePath : classpath) {
+                    compileClassPath.addFolder(absolutePath);
+                }
+            }
+        }
+        return compileClassPath;
+    }
+
+    private void closeCompileClassPath() {
+        if (compileClassPath != null) {
+            try {
+                compileClassPath.close();
+            } catch (IOException e) {
+                // Only folders are on the classpath, there are no open jar files to leak
+            }
+            compileClassPath = null;
+        }
+    }
+
     private URL searchProjectTree(MavenProject project, String resource) {
         // first search relatively to the base directory
         URL res = toURL(new File(project.getBasedir(), resource));
@@ -0,0 +1,65 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Shares objects between the modules of a build through the data of the repository session.
+ */
+public final class SessionDataUtils {
+    /**
+     * Include the class identity in the key so plugin instances loaded by different class loaders
+     * never see each other's data
+     *
+     * @param owner The class the data belongs to
+     * @return The session data key for the class
+     */
+    public static String getKey(Class<?> owner) {
+        return owner.getName() + "@" + Integer.toHexString(System.identityHashCode(owner));
+    }
+
+    /**
+     * @param session The session of the current build, may be null
+     * @param key The session data key, see {@link #getKey(Class)}
+     * @param newValue The value to store if the session has none yet
+     * @return The value stored in the session, newValue if there is no session
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T getOrSet(RepositorySystemSession session, String key, T newValue) {
+        if (session == null || session.getData() == null) {
+            return newValue;
+        }
+
+        final SessionData sessionData = session.getData();
+        while (true) {
+            final Object value = sessionData.get(key);
+            if (value != null) {
+                return (T) value;
+            }
+
+            if (sessionData.set(key, null, newValue)) {
+                return newValue;
+            }
+        }
+    }
+
+    private SessionDataUtils() {}
+}
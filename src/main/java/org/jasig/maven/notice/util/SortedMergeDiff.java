@@ -0,0 +1,131 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import difflib.ChangeDelta;
+import difflib.Chunk;
+import difflib.DeleteDelta;
+import difflib.Delta;
+import difflib.InsertDelta;
+import difflib.Patch;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Linear time diff of two lists whose common elements appear in the same order in both, like two
+ * versions of a sorted list. The lists are merged in a single pass: the common elements are their
+ * longest common subsequence and every run of other elements between them becomes one delta, the
+ * same deltas a general diff would find.
+ *
+ * <p>Lists with duplicate elements or with common elements in a different order can't be merged,
+ * they need a general diff algorithm.
+ */
+public final class SortedMergeDiff {
+
+    /**
+     * @param original The original list
+     * @param revised The revised list
+     * @return The patch turning the original into the revised list, null if the lists can't be
+     *     merged
+     */
+    public static <T> Patch<T> diff(List<T> original, List<T> revised) {
+        final Map<T, Integer> originalIndexes = new HashMap<T, Integer>();
+        for (int i = 0; i < original.size(); i++) {
+            if (originalIndexes.put(original.get(i), i) != null) {
+                return null;
+            }
+        }
+
+        // Mark the common elements, checking they appear in the same order
+        final boolean[] originalCommon = new boolean[original.size()];
+        final boolean[] revisedCommon = new boolean[revised.size()];
+        final Set<T> revisedElements = new HashSet<T>();
+        int lastCommonIndex = -1;
+        for (int j = 0; j < revised.size(); j++) {
+            final T element = revised.get(j);
+            if (!revisedElements.add(element)) {
+                return null;
+            }
+
+            final Integer originalIndex = originalIndexes.get(element);
+            if (originalIndex != null) {
+                if (originalIndex < lastCommonIndex) {
+                    return null;
+                }
+                lastCommonIndex = originalIndex;
+                originalCommon[originalIndex] = true;
+                revisedCommon[j] = true;
+            }
+        }
+
+        // Merge, each run of uncommon elements on either side is a delta
+        final Patch<T> patch = new Patch<T>();
+        int i = 0;
+        int j = 0;
+        while (i < original.size() || j < revised.size()) {
+            final int originalStart = i;
+            final int revisedStart = j;
+            while (i < original.size() && !originalCommon[i]) {
+                i++;
+            }
+            while (j < revised.size() && !revisedCommon[j]) {
+                j++;
+            }
+
+            if (i > originalStart || j > revisedStart) {
+                patch.addDelta(createDelta(original, originalStart, i, revised, revisedStart, j));
+            }
+
+            // Both are now at the same common element or at the end
+            i++;
+            j++;
+        }
+        return patch;
+    }
+
+    private static <T> Delta<T> createDelta(
+            List<T> original,
+            int originalStart,
+            int originalEnd,
+            List<T> revised,
+            int revisedStart,
+            int revisedEnd) {
+        final Chunk<T> originalChunk =
+                new Chunk<T>(
+                        originalStart,
+                        new ArrayList<T>(original.subList(originalStart, originalEnd)));
+        final Chunk<T> revisedChunk =
+                new Chunk<T>(
+                        revisedStart, new ArrayList<T>(revised.subList(revisedStart, revisedEnd)));
+
+        if (originalEnd == originalStart) {
+            return new InsertDelta<T>(originalChunk, revisedChunk);
+        }
+        if (revisedEnd == revisedStart) {
+            return new DeleteDelta<T>(originalChunk, revisedChunk);
+        }
+        return new ChangeDelta<T>(originalChunk, revisedChunk);
+    }
+
+    private SortedMergeDiff() {}
+}
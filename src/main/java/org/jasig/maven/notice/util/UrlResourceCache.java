@@ -0,0 +1,320 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * On disk cache of the content of HTTP(S) resources. A cached copy younger than the max age is
+ * used as is, older copies are revalidated with the ETag and Last-Modified headers returned
+ * when they were fetched. In offline builds, or if the server can't be reached, the cached copy
+ * is used regardless of its age.
+ *
+ * <p>Every URL is fetched at most once per build, the fetched files are shared through the map
+ * passed to the constructor. The content and metadata files of an entry are each moved into
+ * place atomically so concurrent builds can share one cache directory. The metadata records the
+ * SHA-1 of the content it was fetched with, an entry whose content doesn't match is fetched again
+ * as concurrent fetches can leave the content of one with the metadata of another.
+ */
+public final class UrlResourceCache {
+    private static final String FORMAT_VERSION = "2";
+
+    private static final String VERSION_KEY = "version";
+    private static final String URL_KEY = "url";
+    private static final String ETAG_KEY = "etag";
+    private static final String LAST_MODIFIED_KEY = "lastModified";
+    private static final String FETCHED_KEY = "fetched";
+    private static final String CONTENT_CHECKSUM_KEY = "contentChecksum";
+
+    private static final int TIMEOUT = 30000;
+
+    private final Log logger;
+    private final File cacheDirectory;
+    private final long maxAge;
+    private final boolean offline;
+    private final ConcurrentMap<String, Future<File>> fetchedResources;
+
+    /**
+     * @param logger Log
+     * @param cacheDirectory Directory the fetched resources are stored in
+     * @param maxAge Milliseconds a cached copy is used without revalidating it
+     * @param offline If true nothing is fetched, only cached copies are used
+     * @param fetchedResources The files fetched during this build, keyed by URL
+     */
+    public UrlResourceCache(
+            Log logger,
+            File cacheDirectory,
+            long maxAge,
+            boolean offline,
+            ConcurrentMap<String, Future<File>> fetchedResources) {
+        this.logger = logger;
+        this.cacheDirectory = cacheDirectory;
+        this.maxAge = maxAge;
+        this.offline = offline;
+        this.fetchedResources = fetchedResources;
+    }
+
+    /**
+     * @param url The URL to check
+     * @return true if the URL is a HTTP(S) URL that can be cached
+     */
+    public static boolean isCacheable(URL url) {
+        final String protocol = url.getProtocol();
+        return "http".equalsIgnoreCase(protocol) || "https".equalsIgnoreCase(protocol);
+    }
+
+    /**
+     * Get the local copy of a URL, fetching or revalidating it if this is the first time the URL
+     * is requested during the build.
+     *
+     * @param url The URL to get
+     * @return The cached content of the URL
+     * @throws IOException If the URL can't be fetched and there is no cached copy
+     */
+    public File get(final URL url) throws IOException {
+        final String key = url.toExternalForm();
+        Future<File> fetchedResource = this.fetchedResources.get(key);
+        if (fetchedResource == null) {
+            final FutureTask<File> fetchTask =
+                    new FutureTask<File>(
+                            new Callable<File>() {
+                                public File call() throws IOException {
+                                    return fetch(url);
+                                }
+                            });
+            fetchedResource = this.fetchedResources.putIfAbsent(key, fetchTask);
+            if (fetchedResource == null) {
+                fetchedResource = fetchTask;
+                fetchTask.run();
+            }
+        }
+
+        try {
+            return fetchedResource.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching: " + url, e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to fetch: " + url, cause);
+        }
+    }
+
+    private File fetch(URL url) throws IOException {
+        final String key = url.toExternalForm();
+        final String name =
+                Checksums.toHex(
+                        Checksums.getDigest("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8)));
+        final File contentFile = new File(this.cacheDirectory, name + ".content");
+        final File metadataFile = new File(this.cacheDirectory, name + ".properties");
+
+        final Properties metadata = this.readMetadata(metadataFile, key);
+        final boolean cached = metadata != null && this.isContentValid(contentFile, metadata);
+        if (this.offline) {
+            if (!cached) {
+                throw new IOException(
+                        "Can't fetch "
+                                + url
+                                + " in offline mode, it is not cached in: "
+                                + this.cacheDirectory);
+            }
+            this.logger.debug("Using cached copy of " + url + " in offline mode");
+            return contentFile;
+        }
+
+        final long now = System.currentTimeMillis();
+        if (cached && now - getFetched(metadata) < this.maxAge) {
+            this.logger.debug("Using cached copy of " + url);
+            return contentFile;
+        }
+
+        final URLConnection connection = url.openConnection();
+        connection.setUseCaches(false);
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        if (cached) {
+            final String etag = metadata.getProperty(ETAG_KEY);
+            if (etag != null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            final String lastModified = metadata.getProperty(LAST_MODIFIED_KEY);
+            if (lastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", lastModified);
+            }
+        }
+
+        try {
+            final int responseCode = ((HttpURLConnection) connection).getResponseCode();
+            if (cached && responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                this.logger.debug("Cached copy of " + url + " is up to date");
+                metadata.setProperty(FETCHED_KEY, Long.toString(now));
+                this.writeMetadata(metadataFile, metadata);
+                return contentFile;
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected HTTP response " + responseCode + " for: " + url);
+            }
+
+            this.logger.debug("Fetching " + url + " into " + contentFile);
+            final String contentChecksum =
+                    this.writeContent(contentFile, connection.getInputStream());
+
+            final Properties newMetadata = new Properties();
+            newMetadata.setProperty(VERSION_KEY, FORMAT_VERSION);
+            newMetadata.setProperty(URL_KEY, key);
+            newMetadata.setProperty(FETCHED_KEY, Long.toString(now));
+            newMetadata.setProperty(CONTENT_CHECKSUM_KEY, contentChecksum);
+            final String etag = connection.getHeaderField("ETag");
+            if (etag != null) {
+                newMetadata.setProperty(ETAG_KEY, etag);
+            }
+            final String lastModified = connection.getHeaderField("Last-Modified");
+            if (lastModified != null) {
+                newMetadata.setProperty(LAST_MODIFIED_KEY, lastModified);
+            }
+            this.writeMetadata(metadataFile, newMetadata);
+
+            return contentFile;
+        } catch (IOException e) {
+            if (!cached) {
+                throw e;
+            }
+            this.logger.warn("Failed to revalidate " + url + ", using cached copy", e);
+            return contentFile;
+        } finally {
+            ((HttpURLConnection) connection).disconnect();
+        }
+    }
+
+    /** @return The entry metadata, null if there is no valid entry for the URL */
+    private Properties readMetadata(File metadataFile, String key) {
+        final Properties metadata = new Properties();
+        try {
+            final byte[] content = AtomicFiles.readFile(metadataFile);
+            if (content == null) {
+                return null;
+            }
+            metadata.load(new ByteArrayInputStream(content));
+        } catch (IOException e) {
+            this.logger.debug("Failed to read URL cache entry: " + metadataFile, e);
+            return null;
+        }
+
+        if (!FORMAT_VERSION.equals(metadata.getProperty(VERSION_KEY))
+                || !key.equals(metadata.getProperty(URL_KEY))) {
+            return null;
+        }
+        return metadata;
+    }
+
+    /** @return true if the content file is the one the metadata was written for */
+    private boolean isContentValid(File contentFile, Properties metadata) {
+        final String contentChecksum = metadata.getProperty(CONTENT_CHECKSUM_KEY);
+        if (contentChecksum == null || !contentFile.isFile()) {
+            return false;
+        }
+
+        try {
+            if (contentChecksum.equals(Checksums.sha1(contentFile))) {
+                return true;
+            }
+        } catch (IOException e) {
+            this.logger.debug("Failed to checksum URL cache entry: " + contentFile, e);
+            return false;
+        }
+        this.logger.debug("URL cache entry doesn't match its metadata: " + contentFile);
+        return false;
+    }
+
+    private void writeMetadata(File metadataFile, Properties metadata) {
+        try {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            metadata.store(content, null);
+            AtomicFiles.replaceAtomically(metadataFile, content.toByteArray());
+        } catch (IOException e) {
+            this.logger.debug("Failed to write URL cache entry: " + metadataFile, e);
+        }
+    }
+
+    /**
+     * Write the content to a temporary file and move it into place
+     *
+     * @return The SHA-1 of the content
+     */
+    private String writeContent(File contentFile, InputStream content) throws IOException {
+        FileUtils.forceMkdir(this.cacheDirectory);
+        final File tempFile =
+                File.createTempFile(contentFile.getName() + "-", ".tmp", this.cacheDirectory);
+        try {
+            try {
+                FileUtils.copyInputStreamToFile(content, tempFile);
+            } finally {
+                IOUtils.closeQuietly(content);
+            }
+            final String contentChecksum = Checksums.sha1(tempFile);
+
+            try {
+                Files.move(
+                        tempFile.toPath(),
+                        contentFile.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(
+                        tempFile.toPath(),
+                        contentFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            return contentChecksum;
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private static long getFetched(Properties metadata) {
+        try {
+            return Long.parseLong(metadata.getProperty(FETCHED_KEY));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BuildFingerprintTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testUpToDate() throws Exception {
+        final File stateFile = new File(temporaryFolder.getRoot(), "state/generate.fingerprint");
+        final File noticeFile = temporaryFolder.newFile("NOTICE");
+        FileUtils.writeStringToFile(noticeFile, "Example NOTICE", "UTF-8");
+        final List<File> noticeFiles = Collections.singletonList(noticeFile);
+
+        assertFalse(createFingerprint("1.0").isUpToDate(stateFile, noticeFiles));
+        createFingerprint("1.0").save(stateFile, noticeFiles);
+        assertTrue(createFingerprint("1.0").isUpToDate(stateFile, noticeFiles));
+
+        // Changed inputs
+        assertFalse(createFingerprint("1.1").isUpToDate(stateFile, noticeFiles));
+
+        // Unstable inputs
+        final BuildFingerprint unstable = createFingerprint("1.0");
+        unstable.addUnstable("org.example:example-lib:1.1-SNAPSHOT");
+        assertFalse(unstable.isUpToDate(stateFile, noticeFiles));
+
+        // Changed and missing output
+        FileUtils.writeStringToFile(noticeFile, "Edited NOTICE", "UTF-8");
+        assertFalse(createFingerprint("1.0").isUpToDate(stateFile, noticeFiles));
+        assertTrue(noticeFile.delete());
+        assertFalse(createFingerprint("1.0").isUpToDate(stateFile, noticeFiles));
+    }
+
+    private static BuildFingerprint createFingerprint(String version) {
+        final BuildFingerprint fingerprint = new BuildFingerprint();
+        fingerprint.add("noticeMessage", "  {0} under {1}");
+        fingerprint.add("artifact", "org.example:example-lib:jar:" + version + ":compile:false");
+        return fingerprint;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.StringReader;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CheckNoticeMojoTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testContentEquals() throws Exception {
+        final CheckNoticeMojo mojo = new CheckNoticeMojo();
+        final File noticeFile = temporaryFolder.newFile("NOTICE");
+        final String noticeContents = "Example\n\n  Example Library under Apache 2.0\n";
+
+        FileUtils.writeStringToFile(noticeFile, noticeContents, "UTF-8");
+        assertTrue(mojo.contentEquals(new StringReader(noticeContents), noticeFile));
+
+        FileUtils.writeStringToFile(
+                noticeFile, "Example\r\n\r\n  Example Library under Apache 2.0\r\n", "UTF-8");
+        assertTrue(mojo.contentEquals(new StringReader(noticeContents), noticeFile));
+
+        FileUtils.writeStringToFile(
+                noticeFile, "Example\n\n  Example Library under Apache 2.0", "UTF-8");
+        assertFalse(mojo.contentEquals(new StringReader(noticeContents), noticeFile));
+
+        FileUtils.writeStringToFile(
+                noticeFile, "Example\n\n  Example Library under MIT\n", "UTF-8");
+        assertFalse(mojo.contentEquals(new StringReader(noticeContents), noticeFile));
+    }
+
+    @Test
+    public void testGenerateDiff() throws Exception {
+        final CheckNoticeMojo mojo = new CheckNoticeMojo();
+        final String expected = "Example\n  A under X\n  B under Y\n  D under Z\n\nEnd\n";
+        final String existing = "Example\n  B under Y\n  C under Y\n  D under W\n\nEnd\n";
+        final String expectedDiff =
+                "2d2\n<   A under X\n---\n"
+                        + "4c3,4\n<   D under Z\n---\n>   C under Y\n>   D under W\n";
+
+        assertEquals(
+                expectedDiff,
+                mojo.generateDiff(
+                        new SystemStreamLog(),
+                        new StringReader(expected),
+                        new StringReader(existing)));
+
+        // Merging the generated lines between the template lines gives the same diff
+        assertEquals(
+                expectedDiff,
+                mojo.generateDiff(
+                        new SystemStreamLog(),
+                        new StringReader(expected),
+                        new StringReader(existing),
+                        1,
+                        2));
+    }
+}
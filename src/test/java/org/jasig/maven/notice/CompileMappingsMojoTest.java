@@ -0,0 +1,116 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.easymock.Capture;
+import org.easymock.IAnswer;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompileMappingsMojoTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testCompileArtifactMapping() throws Exception {
+        final File jar = this.temporaryFolder.newFile("mappings-1.0.jar");
+        final ZipOutputStream zipStream = new ZipOutputStream(new FileOutputStream(jar));
+        final InputStream mappings = getClass().getResourceAsStream("/license-lookup.xml");
+        try {
+            zipStream.putNextEntry(new ZipEntry("META-INF/license-mappings.xml"));
+            IOUtils.copy(mappings, zipStream);
+            zipStream.closeEntry();
+        } finally {
+            mappings.close();
+            zipStream.close();
+        }
+
+        final RepositorySystem repositorySystem = createMock(RepositorySystem.class);
+        final Capture<ArtifactRequest> request = new Capture<ArtifactRequest>();
+        expect(
+                        repositorySystem.resolveArtifact(
+                                anyObject(RepositorySystemSession.class), capture(request)))
+                .andAnswer(
+                        new IAnswer<ArtifactResult>() {
+                            public ArtifactResult answer() {
+                                final ArtifactResult result =
+                                        new ArtifactResult(request.getValue());
+                                result.setArtifact(
+                                        request.getValue().getArtifact().setFile(jar));
+                                return result;
+                            }
+                        })
+                .atLeastOnce();
+        replay(repositorySystem);
+
+        final Model model = new Model();
+        model.setGroupId("org.example");
+        model.setArtifactId("mapped");
+        model.setVersion("1.0");
+        final MavenProject project = new MavenProject(model);
+        project.setFile(new File(this.temporaryFolder.newFolder("project"), "pom.xml"));
+
+        final String location = "org.foo:mappings:1.0!/META-INF/license-mappings.xml";
+        final CompileMappingsMojo mojo = new CompileMappingsMojo();
+        mojo.project = project;
+        mojo.repoSystem = repositorySystem;
+        mojo.urlCache = false;
+        mojo.licenseMapping = new String[] {location};
+        mojo.licenseMappingIndex = new File(this.temporaryFolder.getRoot(), "mappings.idx");
+        mojo.execute();
+
+        final LicenseMappingIndex index = LicenseMappingIndex.open(mojo.licenseMappingIndex);
+        assertEquals(Arrays.asList(location), index.getSourceLocations());
+        final ArtifactLicenseMatcher matcher =
+                index.getLicenseMatcher("org.apache.maven.plugin.projectinfo.tests", "notice");
+        assertNotNull(matcher);
+        assertEquals(
+                "Apache Software License 2.0",
+                matcher.match(new DefaultArtifactVersion("1.0"))
+                        .getArtifactLicense()
+                        .getLicense());
+
+        assertEquals("org.foo", request.getValue().getArtifact().getGroupId());
+        assertEquals("mappings", request.getValue().getArtifact().getArtifactId());
+        verify(repositorySystem);
+    }
+}
@@ -0,0 +1,365 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectBuilder;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.jasig.maven.notice.util.ResourceFinder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GenerateNoticeMojoTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteIfChanged() throws Exception {
+        final File noticeFile = new File(temporaryFolder.getRoot(), "NOTICE");
+
+        assertTrue(GenerateNoticeMojo.writeNotice(noticeFile, createContents("MIT"), "UTF-8"));
+        assertEquals("  Example under MIT\n", readNotice(noticeFile));
+
+        // Unchanged contents leave the file alone
+        final long lastModified = noticeFile.lastModified() - 60000;
+        assertTrue(noticeFile.setLastModified(lastModified));
+        assertFalse(GenerateNoticeMojo.writeNotice(noticeFile, createContents("MIT"), "UTF-8"));
+        assertEquals(lastModified, noticeFile.lastModified());
+
+        assertTrue(GenerateNoticeMojo.writeNotice(noticeFile, createContents("BSD"), "UTF-8"));
+        assertEquals("  Example under BSD\n", readNotice(noticeFile));
+
+        // No temporary files are left behind
+        assertArrayEquals(new String[] {"NOTICE"}, temporaryFolder.getRoot().list());
+    }
+
+    @Test
+    public void testParallelGraphBuildMatchesSerial() throws Exception {
+        final List<String> serialNotices = this.generateModuleNotices("serial", 1);
+        final List<String> parallelNotices = this.generateModuleNotices("parallel", 4);
+
+        assertEquals(serialNotices, parallelNotices);
+        // Artifacts sharing a name, the one in the first parsed module must win
+        assertTrue(serialNotices.get(0).contains("  Example Utilities under BSD\n"));
+        assertFalse(serialNotices.get(0).contains("LGPL"));
+        assertTrue(serialNotices.get(3).contains("  Example Utilities under LGPL\n"));
+    }
+
+    /**
+     * Generate the NOTICE files of a reactor with three modules in aggregate mode
+     *
+     * @return The contents of the root NOTICE followed by those of the modules
+     */
+    private List<String> generateModuleNotices(String name, int graphBuildThreads)
+            throws Exception {
+        final File basedir = temporaryFolder.newFolder(name);
+        final MavenProject root = createProject("root", new File(basedir, "pom.xml"), null);
+        root.setExecutionRoot(true);
+        final List<MavenProject> modules = new ArrayList<MavenProject>();
+        for (final String module : Arrays.asList("module-a", "module-b", "module-c")) {
+            modules.add(createProject(module, new File(basedir, module + "/pom.xml"), root));
+        }
+        root.setCollectedProjects(modules);
+
+        // module-b depends on module-a, every module shares lib-shared
+        final Map<MavenProject, DependencyNode> trees =
+                new HashMap<MavenProject, DependencyNode>();
+        trees.put(root, createNode(null, "root", "compile"));
+        final DependencyNode moduleA = createNode(null, "module-a", "compile");
+        final DependencyNode sharedA = createNode(moduleA, "lib-shared", "compile");
+        addChildren(sharedA, createNode(sharedA, "lib-shared-child", "runtime"));
+        addChildren(moduleA, sharedA, createNode(moduleA, "lib-a", "compile"));
+        trees.put(modules.get(0), moduleA);
+        final DependencyNode moduleB = createNode(null, "module-b", "compile");
+        final DependencyNode dependencyA = createNode(moduleB, "module-a", "compile");
+        addChildren(dependencyA, createNode(dependencyA, "lib-shared", "compile"));
+        addChildren(moduleB, dependencyA, createNode(moduleB, "lib-test", "test"));
+        trees.put(modules.get(1), moduleB);
+        final DependencyNode moduleC = createNode(null, "module-c", "compile");
+        addChildren(
+                moduleC,
+                createNode(moduleC, "lib-shared", "test"),
+                createNode(moduleC, "lib-c", "provided"));
+        trees.put(modules.get(2), moduleC);
+
+        final GenerateNoticeMojo mojo = this.createMojo(basedir, root, trees);
+        mojo.graphBuildThreads = graphBuildThreads;
+        mojo.execute();
+
+        final List<String> notices = new ArrayList<String>();
+        notices.add(readNotice(new File(basedir, "NOTICE")));
+        for (final MavenProject module : modules) {
+            notices.add(readNotice(new File(module.getBasedir(), "NOTICE")));
+        }
+        return notices;
+    }
+
+    @Test
+    public void testUnresolvedReportedForEveryModule() throws Exception {
+        final File basedir = temporaryFolder.newFolder("unresolved");
+        final MavenProject root = createProject("root", new File(basedir, "pom.xml"), null);
+        root.setExecutionRoot(true);
+        final MavenProject moduleA =
+                createProject("module-a", new File(basedir, "module-a/pom.xml"), root);
+        final MavenProject moduleB =
+                createProject("module-b", new File(basedir, "module-b/pom.xml"), root);
+        root.setCollectedProjects(Arrays.asList(moduleA, moduleB));
+
+        final Map<MavenProject, DependencyNode> trees =
+                new HashMap<MavenProject, DependencyNode>();
+        trees.put(root, createNode(null, "root", "compile"));
+        final DependencyNode treeA = createNode(null, "module-a", "compile");
+        addChildren(treeA, createNode(treeA, "unmapped-a", "compile"));
+        trees.put(moduleA, treeA);
+        final DependencyNode treeB = createNode(null, "module-b", "compile");
+        addChildren(treeB, createNode(treeB, "unmapped-b", "compile"));
+        trees.put(moduleB, treeB);
+
+        final GenerateNoticeMojo mojo = this.createMojo(basedir, root, trees);
+        mojo.mavenProjectBuilder = createNiceMock(MavenProjectBuilder.class);
+        replay(mojo.mavenProjectBuilder);
+        try {
+            mojo.execute();
+            fail("Unresolved artifacts must fail the build");
+        } catch (MojoFailureException e) {
+            // The root NOTICE covers both modules' dependencies
+            assertEquals(
+                    "Failed to find Licenses for 4 artifacts of root, module-a, module-b",
+                    e.getMessage());
+        }
+
+        // Every module got its stub mappings, none got a NOTICE
+        for (final MavenProject module : Arrays.asList(root, moduleA, moduleB)) {
+            assertTrue(new File(module.getBasedir(), "target/license-mappings.xml").isFile());
+            assertFalse(new File(module.getBasedir(), "NOTICE").exists());
+        }
+    }
+
+    @Test
+    public void testUnresolvedModuleIsUnstable() throws Exception {
+        final File basedir = temporaryFolder.newFolder("incremental");
+        final MavenProject root = createProject("root", new File(basedir, "pom.xml"), null);
+        final Dependency dependency = new Dependency();
+        dependency.setGroupId("org.example");
+        dependency.setArtifactId("lib-a");
+        dependency.setVersion("1.0");
+        root.getModel().addDependency(dependency);
+
+        final GenerateNoticeMojo mojo =
+                this.createMojo(basedir, root, new HashMap<MavenProject, DependencyNode>());
+        final ResourceFinder finder = mojo.getResourceFinder();
+        final List<MavenProject> noticeProjects = Arrays.asList(root);
+        final List<File> noticeFiles = Arrays.asList(new File(basedir, "NOTICE"));
+
+        // Transitive dependencies are unknown until Maven resolves the module
+        assertEquals(
+                "org.example:root:jar:1.0 (dependencies not resolved)",
+                mojo.computeInputFingerprint(finder, noticeProjects, noticeFiles)
+                        .getUnstableInput());
+
+        root.setArtifacts(
+                Collections.<Artifact>singleton(
+                        createNode(null, "lib-a", "compile").getArtifact()));
+        assertNull(
+                mojo.computeInputFingerprint(finder, noticeProjects, noticeFiles)
+                        .getUnstableInput());
+        finder.close();
+    }
+
+    @Test
+    public void testReactorDependencyFingerprinted() throws Exception {
+        final File basedir = temporaryFolder.newFolder("reactor");
+        final MavenProject moduleA =
+                createProject("module-a", new File(basedir, "module-a/pom.xml"), null);
+        final MavenProject moduleB =
+                createProject("module-b", new File(basedir, "module-b/pom.xml"), null);
+        addReactorDependency(moduleA, moduleB);
+
+        final GenerateNoticeMojo mojo =
+                this.createMojo(basedir, moduleA, new HashMap<MavenProject, DependencyNode>());
+        mojo.session =
+                new MavenSession(
+                        null,
+                        new DefaultRepositorySystemSession(),
+                        new DefaultMavenExecutionRequest(),
+                        new DefaultMavenExecutionResult());
+        mojo.session.setProjects(Arrays.asList(moduleA, moduleB));
+        final ResourceFinder finder = mojo.getResourceFinder();
+        final List<MavenProject> noticeProjects = Arrays.asList(moduleA);
+        final List<File> noticeFiles = Arrays.asList(new File(basedir, "module-a/NOTICE"));
+
+        final BuildFingerprint fingerprint =
+                mojo.computeInputFingerprint(finder, noticeProjects, noticeFiles);
+        assertNull(fingerprint.getUnstableInput());
+
+        // The name of the sibling module ends up in module-a's NOTICE
+        moduleB.setName("Module B");
+        final BuildFingerprint renamedFingerprint =
+                mojo.computeInputFingerprint(finder, noticeProjects, noticeFiles);
+        assertNull(renamedFingerprint.getUnstableInput());
+        assertFalse(fingerprint.getValue().equals(renamedFingerprint.getValue()));
+
+        // A SNAPSHOT sibling is part of the reactor, not an unstable input
+        moduleA.setArtifacts(Collections.<Artifact>emptySet());
+        moduleA.getModel().getDependencies().clear();
+        moduleA.setVersion("1.1-SNAPSHOT");
+        moduleB.setVersion("1.1-SNAPSHOT");
+        addReactorDependency(moduleA, moduleB);
+        assertNull(
+                mojo.computeInputFingerprint(finder, noticeProjects, noticeFiles)
+                        .getUnstableInput());
+        finder.close();
+    }
+
+    private static void addReactorDependency(MavenProject project, MavenProject sibling) {
+        final Dependency dependency = new Dependency();
+        dependency.setGroupId(sibling.getGroupId());
+        dependency.setArtifactId(sibling.getArtifactId());
+        dependency.setVersion(sibling.getVersion());
+        project.getModel().addDependency(dependency);
+        project.setArtifacts(
+                Collections.<Artifact>singleton(
+                        new DefaultArtifact(
+                                sibling.getGroupId(),
+                                sibling.getArtifactId(),
+                                sibling.getVersion(),
+                                "compile",
+                                "jar",
+                                null,
+                                new DefaultArtifactHandler("jar"))));
+    }
+
+    /** An aggregating mojo for the reactor that builds the given dependency trees */
+    private GenerateNoticeMojo createMojo(
+            File basedir, final MavenProject root, final Map<MavenProject, DependencyNode> trees)
+            throws Exception {
+        final File noticeTemplate = new File(basedir, "NOTICE.template");
+        FileUtils.writeStringToFile(noticeTemplate, "Example\n#GENERATED_NOTICES#\n", "UTF-8");
+
+        final GenerateNoticeMojo mojo =
+                new GenerateNoticeMojo() {
+                    @Override
+                    protected DependencyNode loadDependencyTree(MavenProject project) {
+                        // Finish out of order so the trees aren't built in parse order
+                        try {
+                            Thread.sleep((4 - root.getCollectedProjects().indexOf(project)) * 20);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return trees.get(project);
+                    }
+                };
+        mojo.project = root;
+        mojo.aggregate = true;
+        mojo.incremental = false;
+        mojo.licenseCache = false;
+        mojo.urlCache = false;
+        mojo.readPomsDirectly = false;
+        mojo.noticeTemplate = noticeTemplate.getAbsolutePath();
+        mojo.licenseMapping =
+                new String[] {
+                    new File(getClass().getResource("/license-lookup-modules.xml").toURI())
+                            .getAbsolutePath()
+                };
+        return mojo;
+    }
+
+    private static MavenProject createProject(
+            String artifactId, File pomFile, MavenProject parent) {
+        final Model model = new Model();
+        model.setGroupId("org.example");
+        model.setArtifactId(artifactId);
+        model.setVersion("1.0");
+        model.setName(artifactId);
+        final Build build = new Build();
+        build.setDirectory(new File(pomFile.getParentFile(), "target").getPath());
+        model.setBuild(build);
+        final MavenProject project = new MavenProject(model);
+        project.setFile(pomFile);
+        project.setParent(parent);
+        project.setCollectedProjects(Collections.<MavenProject>emptyList());
+        return project;
+    }
+
+    private static DependencyNode createNode(
+            DependencyNode parent, String artifactId, String scope) {
+        final DefaultDependencyNode node =
+                new DefaultDependencyNode(
+                        parent,
+                        new DefaultArtifact(
+                                "org.example",
+                                artifactId,
+                                "1.0",
+                                scope,
+                                "jar",
+                                null,
+                                new DefaultArtifactHandler("jar")),
+                        null,
+                        null,
+                        null);
+        node.setChildren(Collections.<DependencyNode>emptyList());
+        return node;
+    }
+
+    private static void addChildren(DependencyNode node, DependencyNode... children) {
+        ((DefaultDependencyNode) node).setChildren(Arrays.asList(children));
+    }
+
+    private static NoticeContents createContents(String licenseName) {
+        return new NoticeContents(
+                NoticeTemplate.compile("#GENERATED_NOTICES#", "#GENERATED_NOTICES#"),
+                Arrays.asList(new ArtifactLicenseInfo("Example", licenseName, "compile", false)),
+                null,
+                NoticeLineFormat.compile("  {0} under {1}"),
+                null);
+    }
+
+    private static String readNotice(File noticeFile) throws Exception {
+        return FileUtils.readFileToString(noticeFile, "UTF-8").replace("\r\n", "\n");
+    }
+}
@@ -22,21 +22,30 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
+import java.io.File;
+import java.util.Arrays;
 import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.jasig.maven.notice.lookup.VersionType;
 import org.jasig.maven.notice.util.ResourceFinder;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * @author Eric Dalquist
  * @version $Revision$
  */
 public class LicenseLookupHelperTest {
+    @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private final Log log = new SystemStreamLog();
 
     @Test
@@ -76,4 +85,143 @@ public class LicenseLookupHelperTest {
 
         verify(resourceFinder);
     }
+
+    @Test
+    public void testLicenseLookupPrecedence() throws Exception {
+        final ResourceFinder resourceFinder = createMock(ResourceFinder.class);
+
+        expect(resourceFinder.findResource("license-lookup-precedence.xml"))
+                .andReturn(this.getClass().getResource("/license-lookup-precedence.xml"));
+
+        replay(resourceFinder);
+
+        final LicenseLookupHelper licenseLookupHelper =
+                new LicenseLookupHelper(
+                        log, resourceFinder, new String[] {"license-lookup-precedence.xml"});
+
+        // Exact versions beat regular expressions, the first exact match wins
+        assertLicense(licenseLookupHelper, "1.2", VersionType.STRING, "Exact License");
+        assertLicense(licenseLookupHelper, "1.2.0", VersionType.STRING, "Exact License");
+        assertLicense(licenseLookupHelper, "2.0", VersionType.STRING, "Second Regex License");
+
+        // The first matching regular expression wins
+        assertLicense(licenseLookupHelper, "1.2.1", VersionType.REGEX, "First Regex License");
+
+        // Ranges and regular expressions share precedence, the first matching mapping wins
+        assertLicense(licenseLookupHelper, "2.1", VersionType.RANGE, "Range License");
+        assertLicense(licenseLookupHelper, "2.9.9", VersionType.RANGE, "Range License");
+        assertLicense(licenseLookupHelper, "3.0", VersionType.RANGE, "Later Range License");
+        assertLicense(licenseLookupHelper, "4.0.0", VersionType.RANGE, "Later Range License");
+
+        // Anything else uses the all versions mapping
+        assertLicense(licenseLookupHelper, "4.1", null, "All Versions License");
+
+        assertNull(
+                licenseLookupHelper.lookupLicenseMapping(
+                        "org.example", "other-lib", new DefaultArtifactVersion("1.0")));
+
+        verify(resourceFinder);
+    }
+
+    @Test
+    public void testCompiledMappingsShared() throws Exception {
+        final ResourceFinder resourceFinder = createMock(ResourceFinder.class);
+
+        expect(resourceFinder.findResource("license-lookup-precedence.xml"))
+                .andReturn(this.getClass().getResource("/license-lookup-precedence.xml"))
+                .times(2);
+
+        replay(resourceFinder);
+
+        final String[] licenseLookupFiles = {"license-lookup-precedence.xml"};
+        final ResolvedLicense first =
+                new LicenseLookupHelper(log, resourceFinder, licenseLookupFiles)
+                        .lookupLicenseMapping(
+                                "org.example", "example-lib", new DefaultArtifactVersion("1.2"));
+        final ResolvedLicense second =
+                new LicenseLookupHelper(log, resourceFinder, licenseLookupFiles)
+                        .lookupLicenseMapping(
+                                "org.example", "example-lib", new DefaultArtifactVersion("1.2"));
+
+        // Helpers with the same configuration share the compiled mappings
+        assertSame(first.getArtifactLicense(), second.getArtifactLicense());
+
+        verify(resourceFinder);
+    }
+
+    @Test
+    public void testLicenseMappingIndex() throws Exception {
+        final ResourceFinder resourceFinder = createMock(ResourceFinder.class);
+
+        expect(resourceFinder.findResource("license-lookup-precedence.xml"))
+                .andReturn(this.getClass().getResource("/license-lookup-precedence.xml"))
+                .anyTimes();
+        expect(resourceFinder.findResource("license-lookup.xml"))
+                .andReturn(this.getClass().getResource("/license-lookup.xml"))
+                .anyTimes();
+
+        replay(resourceFinder);
+
+        final String[] licenseLookupFiles = {"license-lookup-precedence.xml"};
+        final File indexFile = this.temporaryFolder.newFile("license-mappings.idx");
+
+        final LicenseLookupHelper compiler = new LicenseLookupHelper(log, resourceFinder);
+        LicenseMappingIndex.write(
+                indexFile,
+                Arrays.asList(licenseLookupFiles),
+                compiler.getLicenseLookupChecksums(licenseLookupFiles),
+                compiler.loadMergedMappings(licenseLookupFiles));
+
+        // Lookups against the index match lookups against the XML
+        final LicenseLookupHelper licenseLookupHelper =
+                new LicenseLookupHelper(log, resourceFinder, licenseLookupFiles, indexFile);
+        assertLicense(licenseLookupHelper, "1.2.0", VersionType.STRING, "Exact License");
+        assertLicense(licenseLookupHelper, "1.2.1", VersionType.REGEX, "First Regex License");
+        assertLicense(licenseLookupHelper, "2.9.9", VersionType.RANGE, "Range License");
+        assertLicense(licenseLookupHelper, "4.1", null, "All Versions License");
+        assertNull(
+                licenseLookupHelper.lookupLicenseMapping(
+                        "org.example", "other-lib", new DefaultArtifactVersion("1.0")));
+
+        // An index compiled from other mapping files is ignored
+        final LicenseLookupHelper staleLookupHelper =
+                new LicenseLookupHelper(
+                        log, resourceFinder, new String[] {"license-lookup.xml"}, indexFile);
+        assertNull(
+                staleLookupHelper.lookupLicenseMapping(
+                        "org.example", "example-lib", new DefaultArtifactVersion("1.2")));
+        assertNotNull(
+                staleLookupHelper.lookupLicenseMapping(
+                        "classworlds", "classworlds", new DefaultArtifactVersion("1.1.0")));
+
+        // Rewriting the index replaces the file, an index mapped from the old file still reads it
+        final LicenseMappingIndex mappedIndex = LicenseMappingIndex.open(indexFile);
+        final String[] otherLookupFiles = {"license-lookup.xml"};
+        LicenseMappingIndex.write(
+                indexFile,
+                Arrays.asList(otherLookupFiles),
+                compiler.getLicenseLookupChecksums(otherLookupFiles),
+                compiler.loadMergedMappings(otherLookupFiles));
+        assertNotNull(mappedIndex.getLicenseMatcher("org.example", "example-lib"));
+        assertEquals(
+                Arrays.asList(otherLookupFiles),
+                LicenseMappingIndex.open(indexFile).getSourceLocations());
+        assertArrayEquals(
+                new String[] {"license-mappings.idx"}, this.temporaryFolder.getRoot().list());
+
+        verify(resourceFinder);
+    }
+
+    private void assertLicense(
+            LicenseLookupHelper licenseLookupHelper,
+            String version,
+            VersionType versionType,
+            String license) {
+        final ResolvedLicense resolvedLicense =
+                licenseLookupHelper.lookupLicenseMapping(
+                        "org.example", "example-lib", new DefaultArtifactVersion(version));
+        assertNotNull(resolvedLicense);
+        assertEquals(versionType, resolvedLicense.getVersionType());
+        assertEquals(license, resolvedLicense.getArtifactLicense().getLicense());
+    }
 }
@@ -0,0 +1,61 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStream;
+import java.util.List;
+import org.jasig.maven.notice.lookup.ArtifactLicense;
+import org.jasig.maven.notice.lookup.LicenseLookup;
+import org.junit.Test;
+
+public class LicenseLookupReaderTest {
+    @Test
+    public void testReadMatchesJaxb() throws Exception {
+        for (final String resource :
+                new String[] {
+                    "/license-lookup.xml",
+                    "/license-lookup-fallbacks.xml",
+                    "/license-lookup-precedence.xml"
+                }) {
+            final LicenseLookup expected;
+            final InputStream jaxbStream = this.getClass().getResourceAsStream(resource);
+            try {
+                expected =
+                        (LicenseLookup)
+                                LicenseLookupContext.getUnmarshaller().unmarshal(jaxbStream);
+            } finally {
+                jaxbStream.close();
+            }
+
+            final MergedLicenseMappings mergedLicenseLookup = new MergedLicenseMappings();
+            final List<ArtifactLicense> artifactLicenses;
+            final InputStream staxStream = this.getClass().getResourceAsStream(resource);
+            try {
+                artifactLicenses =
+                        new LicenseLookupReader().read(staxStream, mergedLicenseLookup);
+            } finally {
+                staxStream.close();
+            }
+
+            assertEquals(resource, expected.getArtifact(), artifactLicenses);
+        }
+    }
+}
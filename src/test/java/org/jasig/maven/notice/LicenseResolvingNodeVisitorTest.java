@@ -0,0 +1,250 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.model.License;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.jasig.maven.notice.util.ResourceFinder;
+import org.junit.Test;
+
+public class LicenseResolvingNodeVisitorTest {
+    private final Log log = new SystemStreamLog();
+
+    @Test
+    public void testParallelResolutionMatchesSerial() throws Exception {
+        final DependencyNode tree = this.createTree();
+
+        final LicenseResolvingNodeVisitor serialVisitor = this.createVisitor(null);
+        tree.accept(serialVisitor);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final LicenseResolvingNodeVisitor parallelVisitor;
+        try {
+            parallelVisitor = this.createVisitor(executor);
+            tree.accept(parallelVisitor);
+            assertEquals(
+                    toLines(serialVisitor.getResolvedLicenses()),
+                    toLines(parallelVisitor.getResolvedLicenses()));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(
+                new ArrayList<Artifact>(serialVisitor.getUnresolvedArtifacts()),
+                new ArrayList<Artifact>(parallelVisitor.getUnresolvedArtifacts()));
+        assertEquals(1, parallelVisitor.getUnresolvedArtifacts().size());
+        // Artifacts sharing a name, the first visited must win
+        assertEquals(
+                "  Commons under Apache 2.0|compile|false",
+                toLines(parallelVisitor.getResolvedLicenses()).get(0));
+    }
+
+    @Test
+    public void testFilteredSubtreesSkipped() throws Exception {
+        final DefaultDependencyNode root =
+                new DefaultDependencyNode(createArtifact("root", "compile"));
+        final DependencyNode lib = createNode(root, "lib", "compile");
+        final DependencyNode testLib = createNode(root, "test-lib", "test");
+        final DependencyNode optionalLib = createNode(root, "optional-lib", "compile");
+        optionalLib.getArtifact().setOptional(true);
+        root.setChildren(Arrays.asList(lib, testLib, optionalLib));
+        ((DefaultDependencyNode) lib)
+                .setChildren(Arrays.asList(createNode(lib, "lib-runtime", "runtime")));
+        ((DefaultDependencyNode) testLib)
+                .setChildren(Arrays.asList(createNode(testLib, "test-child", "test")));
+        ((DefaultDependencyNode) optionalLib)
+                .setChildren(Arrays.asList(createNode(optionalLib, "optional-child", "compile")));
+
+        final List<String> loadedArtifacts = new ArrayList<String>();
+        final LicenseResolvingNodeVisitor visitor =
+                this.createVisitor(
+                        null,
+                        new DependencyFilter(
+                                Collections.<String>emptySet(),
+                                Collections.singleton("test"),
+                                true),
+                        loadedArtifacts);
+        root.accept(visitor);
+
+        // Excluded dependencies aren't resolved, excluded optional ones aren't descended into
+        assertEquals(Arrays.asList("root", "lib", "lib-runtime"), loadedArtifacts);
+        assertEquals(
+                Arrays.asList(
+                        "  lib under Apache 2.0|compile|false",
+                        "  lib-runtime under Apache 2.0|runtime|false",
+                        "  root under Apache 2.0|compile|false"),
+                toLines(visitor.getResolvedLicenses()));
+    }
+
+    @Test
+    public void testCompileNodeUnderExcludedScope() throws Exception {
+        // Conflict resolution can widen a nearest node's scope, like junit:test -> hamcrest:compile
+        final DefaultDependencyNode root =
+                new DefaultDependencyNode(createArtifact("root", "compile"));
+        final DependencyNode junit = createNode(root, "junit", "test");
+        root.setChildren(Arrays.<DependencyNode>asList(junit));
+        ((DefaultDependencyNode) junit)
+                .setChildren(Arrays.asList(createNode(junit, "hamcrest-core", "compile")));
+
+        final List<String> loadedArtifacts = new ArrayList<String>();
+        final LicenseResolvingNodeVisitor visitor =
+                this.createVisitor(
+                        null,
+                        new DependencyFilter(
+                                Collections.singleton("compile"),
+                                Collections.<String>emptySet(),
+                                false),
+                        loadedArtifacts);
+        root.accept(visitor);
+
+        assertEquals(Arrays.asList("root", "hamcrest-core"), loadedArtifacts);
+        assertEquals(
+                Arrays.asList(
+                        "  hamcrest-core under Apache 2.0|compile|false",
+                        "  root under Apache 2.0|compile|false"),
+                toLines(visitor.getResolvedLicenses()));
+    }
+
+    private LicenseResolvingNodeVisitor createVisitor(ExecutorService executor) throws Exception {
+        return this.createVisitor(executor, null, new ArrayList<String>());
+    }
+
+    private LicenseResolvingNodeVisitor createVisitor(
+            ExecutorService executor,
+            DependencyFilter dependencyFilter,
+            final List<String> loadedArtifacts)
+            throws Exception {
+        final LicenseLookupHelper licenseLookupHelper =
+                new LicenseLookupHelper(log, createMock(ResourceFinder.class), null);
+
+        return new LicenseResolvingNodeVisitor(
+                log,
+                licenseLookupHelper,
+                Collections.<ArtifactRepository>emptyList(),
+                null,
+                null,
+                null,
+                null,
+                null,
+                executor,
+                dependencyFilter,
+                LicenseResolvingNodeVisitor.createSharedResolutions()) {
+            @Override
+            protected MavenProject loadProject(Artifact artifact) {
+                synchronized (loadedArtifacts) {
+                    loadedArtifacts.add(artifact.getArtifactId());
+                }
+
+                // Finish out of order so the parallel path has to re-order results
+                try {
+                    Thread.sleep((artifact.getArtifactId().hashCode() & 0x7) * 5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                if (artifact.getArtifactId().startsWith("unlicensed")) {
+                    return null;
+                }
+
+                final Model model = new Model();
+                model.setArtifactId(artifact.getArtifactId());
+                if (artifact.getArtifactId().startsWith("commons")) {
+                    model.setName("Commons");
+                } else {
+                    model.setName(artifact.getArtifactId());
+                }
+                final License license = new License();
+                license.setName("Apache 2.0");
+                model.addLicense(license);
+                return new MavenProject(model);
+            }
+        };
+    }
+
+    private DependencyNode createTree() {
+        final DefaultDependencyNode root =
+                new DefaultDependencyNode(createArtifact("root", "compile"));
+        final List<DependencyNode> children = new ArrayList<DependencyNode>();
+        for (int i = 0; i < 20; i++) {
+            children.add(createNode(root, "lib-" + i, "compile"));
+        }
+        // Artifacts sharing a name, the first visited must win
+        children.add(createNode(root, "commons-first", "compile"));
+        children.add(createNode(root, "commons-second", "test"));
+        children.add(createNode(root, "unlicensed", "compile"));
+        // Duplicate of an already visited artifact
+        children.add(createNode(root, "lib-3", "test"));
+        root.setChildren(children);
+        return root;
+    }
+
+    private static DependencyNode createNode(
+            DependencyNode parent, String artifactId, String scope) {
+        final DefaultDependencyNode node =
+                new DefaultDependencyNode(
+                        parent, createArtifact(artifactId, scope), null, null, null);
+        node.setChildren(Collections.<DependencyNode>emptyList());
+        return node;
+    }
+
+    private static Artifact createArtifact(String artifactId, String scope) {
+        return new DefaultArtifact(
+                "org.example",
+                artifactId,
+                "1.0",
+                scope,
+                "jar",
+                null,
+                new DefaultArtifactHandler("jar"));
+    }
+
+    private static List<String> toLines(Iterable<ArtifactLicenseInfo> licenses) {
+        final List<String> lines = new ArrayList<String>();
+        for (final ArtifactLicenseInfo license : licenses) {
+            lines.add(
+                    "  "
+                            + license.getArtifactName()
+                            + " under "
+                            + license.getLicenseName()
+                            + "|"
+                            + license.getScope()
+                            + "|"
+                            + license.isOptional());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.junit.Test;
+
+public class ModuleExclusionsTest {
+    @Test
+    public void testMatchesParentWalk() {
+        // root <- excluded <- middle <- leaf, and root <- other
+        final MavenProject root = createProject("root", null);
+        final MavenProject excluded = createProject("excluded", root);
+        final MavenProject middle = createProject("middle", excluded);
+        final MavenProject leaf = createProject("leaf", middle);
+        final MavenProject other = createProject("other", root);
+        final List<MavenProject> projects = Arrays.asList(root, excluded, middle, leaf, other);
+
+        final Set<String> excludedModules = new HashSet<String>(Arrays.asList("excluded"));
+        final ModuleExclusions exclusions = new ModuleExclusions(excludedModules);
+
+        for (final MavenProject aggregator : projects) {
+            for (final MavenProject module : projects) {
+                assertEquals(
+                        module.getArtifactId() + " in " + aggregator.getArtifactId(),
+                        walkParents(module, aggregator.getArtifactId(), excludedModules),
+                        exclusions.getExcludingArtifactId(module, aggregator.getArtifactId()));
+            }
+        }
+
+        assertEquals("excluded", exclusions.getExcludingArtifactId(leaf, "root"));
+        assertNull(exclusions.getExcludingArtifactId(leaf, "middle"));
+        assertNull(exclusions.getExcludingArtifactId(middle, "excluded"));
+    }
+
+    /** The parent walk done before exclusions were precomputed */
+    private static String walkParents(
+            MavenProject mavenProject, String rootArtifactId, Set<String> excludedModules) {
+        if (excludedModules.contains(mavenProject.getArtifactId())) {
+            return mavenProject.getArtifactId();
+        }
+
+        MavenProject parentProject = mavenProject.getParent();
+        while (parentProject != null && !rootArtifactId.equals(parentProject.getArtifactId())) {
+            if (excludedModules.contains(parentProject.getArtifactId())) {
+                return parentProject.getArtifactId();
+            }
+            parentProject = parentProject.getParent();
+        }
+        return null;
+    }
+
+    private static MavenProject createProject(String artifactId, MavenProject parent) {
+        final Model model = new Model();
+        model.setGroupId("org.example");
+        model.setArtifactId(artifactId);
+        model.setVersion("1.0");
+        final MavenProject project = new MavenProject(model);
+        project.setParent(parent);
+        return project;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.Reader;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.project.MavenProject;
+import org.junit.Test;
+
+public class NoticeContentsTest {
+
+    @Test
+    public void testRendering() throws Exception {
+        final List<ArtifactLicenseInfo> resolvedLicenses =
+                Arrays.asList(
+                        new ArtifactLicenseInfo("Example API", "Apache 2.0", "compile", false),
+                        new ArtifactLicenseInfo("Example Test", "MIT", "test", false),
+                        new ArtifactLicenseInfo("Example Tools", "BSD", "compile", true));
+        final DependencyFilter dependencyFilter =
+                new DependencyFilter(
+                        Collections.<String>emptySet(), Collections.singleton("test"), false);
+        final String lines =
+                "  Example API under Apache 2.0"
+                        + IOUtils.LINE_SEPARATOR
+                        + "  Example Tools under BSD"
+                        + IOUtils.LINE_SEPARATOR;
+
+        final String template = "Header\n#GENERATED_NOTICES#\nMiddle #GENERATED_NOTICES#End\n";
+        final NoticeContents noticeContents =
+                new NoticeContents(
+                        NoticeTemplate.compile(template, "#GENERATED_NOTICES#"),
+                        resolvedLicenses,
+                        dependencyFilter,
+                        NoticeLineFormat.compile("  {0} under {1}"),
+                        null);
+
+        final String expected = template.replace("#GENERATED_NOTICES#", lines);
+        assertEquals(expected, noticeContents.toString());
+
+        // Read with a small buffer so chunks span reads
+        final Reader reader = noticeContents.getReader();
+        final StringBuilder read = new StringBuilder();
+        final char[] buffer = new char[7];
+        for (int count = reader.read(buffer); count >= 0; count = reader.read(buffer)) {
+            read.append(buffer, 0, count);
+        }
+        assertEquals(expected, read.toString());
+
+        // Without a placeholder the template is left as is
+        assertEquals(
+                "No placeholder\n",
+                new NoticeContents(
+                                NoticeTemplate.compile("No placeholder\n", "#GENERATED_NOTICES#"),
+                                resolvedLicenses,
+                                null,
+                                NoticeLineFormat.compile("  {0} under {1}"),
+                                null)
+                        .toString());
+    }
+
+    @Test
+    public void testPlaceholders() throws Exception {
+        final List<ArtifactLicenseInfo> resolvedLicenses =
+                Arrays.asList(
+                        new ArtifactLicenseInfo("Example API", "Apache 2.0", "compile", false),
+                        new ArtifactLicenseInfo("Example Lib", "MIT", "compile", false),
+                        new ArtifactLicenseInfo("Example Tools", "apache 2.0", "compile", false));
+        final MavenProject project = new MavenProject();
+        project.setName("Example Project");
+        project.setVersion("1.2");
+        final String separator = IOUtils.LINE_SEPARATOR;
+
+        final NoticeContents noticeContents =
+                new NoticeContents(
+                        NoticeTemplate.compile(
+                                "#PROJECT_NAME# #PROJECT_VERSION##PROJECT_URL#: "
+                                        + "#DEPENDENCY_COUNT# under #LICENSE_COUNT#"
+                                        + separator
+                                        + "#GENERATED_NOTICES_BY_LICENSE#",
+                                "#GENERATED_NOTICES#"),
+                        resolvedLicenses,
+                        null,
+                        NoticeLineFormat.compile("  {0} under {1}"),
+                        project);
+
+        assertEquals(
+                "Example Project 1.2: 3 under 2"
+                        + separator
+                        + "Apache 2.0"
+                        + separator
+                        + "  Example API"
+                        + separator
+                        + "  Example Tools"
+                        + separator
+                        + separator
+                        + "MIT"
+                        + separator
+                        + "  Example Lib"
+                        + separator,
+                noticeContents.toString());
+    }
+
+    @Test
+    public void testSurroundingLineCounts() {
+        final String separator = IOUtils.LINE_SEPARATOR;
+        assertArrayEquals(
+                new int[] {2, 2},
+                NoticeTemplate.compile(
+                                "#PROJECT_NAME#"
+                                        + separator
+                                        + separator
+                                        + "#GENERATED_NOTICES#"
+                                        + separator
+                                        + "End"
+                                        + separator,
+                                "#GENERATED_NOTICES#")
+                        .getSurroundingLineCounts());
+        assertArrayEquals(
+                new int[] {-1, -1},
+                NoticeTemplate.compile("Start #GENERATED_NOTICES#", "#GENERATED_NOTICES#")
+                        .getSurroundingLineCounts());
+        assertArrayEquals(
+                new int[] {-1, -1},
+                NoticeTemplate.compile(
+                                "#GENERATED_NOTICES#"
+                                        + separator
+                                        + "#GENERATED_NOTICES_BY_LICENSE#",
+                                "#GENERATED_NOTICES#")
+                        .getSurroundingLineCounts());
+    }
+
+    @Test
+    public void testLineFormatMatchesMessageFormat() {
+        for (final String pattern :
+                Arrays.asList(
+                        "  {0} under {1}",
+                        "{1}: {0}",
+                        "{0} {0} {1} }",
+                        "It''s {0}",
+                        "'{0}' is {0}",
+                        "'quoted ''{1}'' text' {1}",
+                        "{1} '{'{0}'}' {2}",
+                        "  {0} under {1} 'unterminated")) {
+            assertEquals(
+                    pattern,
+                    new MessageFormat(pattern).format(new Object[] {"Example", "Apache 2.0"}),
+                    NoticeLineFormat.compile(pattern).format("Example", "Apache 2.0"));
+        }
+    }
+}
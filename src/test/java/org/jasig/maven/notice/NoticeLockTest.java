@@ -0,0 +1,98 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NoticeLockTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        final File lockFile = new File(temporaryFolder.getRoot(), "NOTICE.lock");
+        assertNull(NoticeLock.read(lockFile));
+
+        final NoticeLock noticeLock =
+                new NoticeLock(
+                        "0123abcd",
+                        Arrays.asList(
+                                new NoticeLock.Entry(
+                                        "org.example", "example-lib", "jar", null, "1.0",
+                                        "compile", false, NoticeLock.SOURCE_POM,
+                                        "Example\tLibrary", "Apache 2.0"),
+                                new NoticeLock.Entry(
+                                        "org.example", "example-api", "test-jar", "tests", "2.1",
+                                        "test", true, NoticeLock.SOURCE_MAPPING,
+                                        "Example API", "Example \\ License\nVersion 2"),
+                                new NoticeLock.Entry(
+                                        "org.example", "example-lib", "jar", null, "1.0",
+                                        "runtime", false, NoticeLock.SOURCE_POM,
+                                        "Duplicate", "Apache 2.0")));
+        assertTrue(noticeLock.write(lockFile));
+
+        // Unchanged entries leave the file alone
+        final long lastModified = lockFile.lastModified() - 60000;
+        assertTrue(lockFile.setLastModified(lastModified));
+        assertFalse(
+                new NoticeLock("0123abcd", NoticeLock.read(lockFile).getEntries())
+                        .write(lockFile));
+        assertEquals(lastModified, lockFile.lastModified());
+        // No temporary files are left behind
+        assertArrayEquals(new String[] {"NOTICE.lock"}, temporaryFolder.getRoot().list());
+
+        final NoticeLock readLock = NoticeLock.read(lockFile);
+        assertEquals("0123abcd", readLock.getMappingsFingerprint());
+
+        final List<NoticeLock.Entry> entries = readLock.getEntries();
+        assertEquals(2, entries.size());
+
+        final NoticeLock.Entry api = entries.get(0);
+        assertEquals("org.example:example-api:test-jar:tests:2.1", api.getKey());
+        assertEquals("test", api.getScope());
+        assertTrue(api.isOptional());
+        assertEquals(NoticeLock.SOURCE_MAPPING, api.getSource());
+        assertEquals("Example \\ License\nVersion 2", api.getLicenseName());
+
+        final NoticeLock.Entry lib = entries.get(1);
+        assertEquals("org.example:example-lib:jar::1.0", lib.getKey());
+        assertNull(lib.getClassifier());
+        assertFalse(lib.isOptional());
+        assertEquals("Example\tLibrary", lib.getName());
+        assertEquals("compile", lib.getScope());
+
+        // Locks in another format are ignored
+        FileUtils.writeStringToFile(
+                lockFile,
+                FileUtils.readFileToString(lockFile, "UTF-8").replace("#version 1", "#version 0"),
+                "UTF-8");
+        assertNull(NoticeLock.read(lockFile));
+    }
+}
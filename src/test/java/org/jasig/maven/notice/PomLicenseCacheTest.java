@@ -0,0 +1,84 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PomLicenseCacheTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testEntriesInvalidatedByPomChecksum() throws Exception {
+        final File repositoryDirectory = temporaryFolder.newFolder("repository");
+        final ArtifactRepository localRepository =
+                new MavenArtifactRepository(
+                        "local",
+                        repositoryDirectory.toURI().toString(),
+                        new DefaultRepositoryLayout(),
+                        null,
+                        null);
+        final File pomFile =
+                new File(repositoryDirectory, "org/example/example-lib/1.0/example-lib-1.0.pom");
+        FileUtils.writeStringToFile(pomFile, "<project/>", "UTF-8");
+
+        final Artifact artifact =
+                new DefaultArtifact(
+                        "org.example",
+                        "example-lib",
+                        "1.0",
+                        "compile",
+                        "jar",
+                        null,
+                        new DefaultArtifactHandler("jar"));
+
+        final PomLicenseCache cache =
+                new PomLicenseCache(
+                        new SystemStreamLog(), temporaryFolder.newFolder("cache"), localRepository);
+        assertNull(cache.get(artifact));
+
+        cache.put(artifact, new PomLicense("Example Library", "Apache 2.0"));
+        final PomLicense cachedLicense = cache.get(artifact);
+        assertEquals("Example Library", cachedLicense.getName());
+        assertEquals("Apache 2.0", cachedLicense.getLicenseName());
+
+        // A changed POM must not use the old entry
+        FileUtils.writeStringToFile(pomFile, "<project><name>Changed</name></project>", "UTF-8");
+        assertNull(cache.get(artifact));
+
+        // The checksum computed for the lookup is reused to store the entry
+        final String changedChecksum = cache.getPomChecksum(artifact);
+        assertNull(cache.get(artifact, changedChecksum));
+        cache.put(artifact, changedChecksum, new PomLicense("Changed", "MIT"));
+        assertEquals("MIT", cache.get(artifact).getLicenseName());
+    }
+}
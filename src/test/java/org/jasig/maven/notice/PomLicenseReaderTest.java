@@ -0,0 +1,121 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PomLicenseReaderTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File repositoryDirectory;
+    private PomLicenseReader pomLicenseReader;
+
+    @Before
+    public void setUp() throws Exception {
+        repositoryDirectory = temporaryFolder.newFolder("repository");
+        pomLicenseReader =
+                new PomLicenseReader(
+                        new SystemStreamLog(),
+                        new MavenArtifactRepository(
+                                "local",
+                                repositoryDirectory.toURI().toString(),
+                                new DefaultRepositoryLayout(),
+                                null,
+                                null));
+
+        writePom(
+                "parent",
+                "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">"
+                        + "<artifactId>parent</artifactId><licenses><license><name>Apache 2.0</name></license>"
+                        + "<license><name>MIT</name></license></licenses></project>");
+    }
+
+    @Test
+    public void testInheritedLicenses() throws Exception {
+        writePom(
+                "child",
+                "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">"
+                        + "<parent><groupId>org.example</groupId><artifactId>parent</artifactId>"
+                        + "<version>1.0</version></parent><name> Child Library </name></project>");
+
+        final PomLicense pomLicense = pomLicenseReader.read(createArtifact("child"));
+        assertEquals("Child Library", pomLicense.getName());
+        assertEquals("Apache 2.0 or MIT", pomLicense.getLicenseName());
+    }
+
+    @Test
+    public void testDefaultName() throws Exception {
+        writePom(
+                "unnamed",
+                "<project><licenses><license><name>BSD</name></license></licenses></project>");
+
+        final PomLicense pomLicense = pomLicenseReader.read(createArtifact("unnamed"));
+        assertEquals("unnamed", pomLicense.getName());
+        assertEquals("BSD", pomLicense.getLicenseName());
+    }
+
+    @Test
+    public void testInterpolationFallsBack() throws Exception {
+        writePom(
+                "interpolated",
+                "<project><name>${project.artifactId}</name>"
+                        + "<licenses><license><name>BSD</name></license></licenses></project>");
+        assertNull(pomLicenseReader.read(createArtifact("interpolated")));
+
+        // Missing parent POMs are left to the project builder
+        writePom(
+                "orphan",
+                "<project><parent><groupId>org.example</groupId><artifactId>missing</artifactId>"
+                        + "<version>1.0</version></parent></project>");
+        assertNull(pomLicenseReader.read(createArtifact("orphan")));
+    }
+
+    private void writePom(String artifactId, String content) throws Exception {
+        final File pomFile =
+                new File(
+                        repositoryDirectory,
+                        "org/example/" + artifactId + "/1.0/" + artifactId + "-1.0.pom");
+        FileUtils.writeStringToFile(pomFile, content, "UTF-8");
+    }
+
+    private static Artifact createArtifact(String artifactId) {
+        return new DefaultArtifact(
+                "org.example",
+                artifactId,
+                "1.0",
+                "compile",
+                "jar",
+                null,
+                new DefaultArtifactHandler("jar"));
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.Test;
+
+public class PomLicenseRegistryTest {
+
+    @Test
+    public void testSessionScopedSingleResolution() throws Exception {
+        final DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        final PomLicenseRegistry registry = PomLicenseRegistry.getInstance(session);
+        assertSame(registry, PomLicenseRegistry.getInstance(session));
+
+        final Artifact artifact =
+                new DefaultArtifact(
+                        "org.example",
+                        "example-lib",
+                        "1.0",
+                        "compile",
+                        "jar",
+                        null,
+                        new DefaultArtifactHandler("jar"));
+        final AtomicInteger loads = new AtomicInteger();
+        final Callable<PomLicense> loader =
+                new Callable<PomLicense>() {
+                    public PomLicense call() throws Exception {
+                        loads.incrementAndGet();
+                        Thread.sleep(50);
+                        return new PomLicense("Example Library", "Apache 2.0");
+                    }
+                };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<PomLicense>> results = new ArrayList<Future<PomLicense>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(
+                        executor.submit(
+                                new Callable<PomLicense>() {
+                                    public PomLicense call() {
+                                        return PomLicenseRegistry.getInstance(session)
+                                                .resolve(artifact, loader);
+                                    }
+                                }));
+            }
+            for (final Future<PomLicense> result : results) {
+                assertEquals("Apache 2.0", result.get().getLicenseName());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testFailedResolutionRetried() throws Exception {
+        final PomLicenseRegistry registry =
+                PomLicenseRegistry.getInstance(new DefaultRepositorySystemSession());
+        final Artifact artifact =
+                new DefaultArtifact(
+                        "org.example",
+                        "example-lib",
+                        "1.0",
+                        "compile",
+                        "jar",
+                        null,
+                        new DefaultArtifactHandler("jar"));
+        final AtomicInteger loads = new AtomicInteger();
+        final Callable<PomLicense> loader =
+                new Callable<PomLicense>() {
+                    public PomLicense call() {
+                        switch (loads.incrementAndGet()) {
+                            case 1:
+                                throw new IllegalStateException("Repository unavailable");
+                            case 2:
+                                return null;
+                            default:
+                                return new PomLicense("Example Library", "Apache 2.0");
+                        }
+                    }
+                };
+
+        // A transient failure or missing POM isn't remembered for later modules
+        try {
+            registry.resolve(artifact, loader);
+            fail("The loader's failure must be rethrown");
+        } catch (IllegalStateException e) {
+            assertEquals("Repository unavailable", e.getMessage());
+        }
+        assertNull(registry.resolve(artifact, loader));
+        assertEquals("Apache 2.0", registry.resolve(artifact, loader).getLicenseName());
+        assertEquals("Apache 2.0", registry.resolve(artifact, loader).getLicenseName());
+        assertEquals(3, loads.get());
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isNull;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.MojoFailureException;
+import org.easymock.Capture;
+import org.easymock.IAnswer;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArtifactResourceResolverTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testIsArtifactResource() {
+        assertTrue(ArtifactResourceResolver.isArtifactResource("org.foo:mappings:1.0!/m.xml"));
+        assertTrue(
+                ArtifactResourceResolver.isArtifactResource(
+                        "org.foo:mappings:1.0:licenses!/META-INF/m.xml"));
+        assertFalse(ArtifactResourceResolver.isArtifactResource("license-mappings.xml"));
+        assertFalse(ArtifactResourceResolver.isArtifactResource("org.foo:mappings:1.0"));
+        assertFalse(ArtifactResourceResolver.isArtifactResource("jar:file:/m.jar!/m.xml"));
+        assertFalse(ArtifactResourceResolver.isArtifactResource("C:\\m.jar!/m.xml"));
+        assertFalse(ArtifactResourceResolver.isArtifactResource("http://host/m.jar!/m.xml"));
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+        final File jar = this.temporaryFolder.newFile("mappings-1.0-licenses.jar");
+        final ZipOutputStream zipStream = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            zipStream.putNextEntry(new ZipEntry("META-INF/mappings.xml"));
+            zipStream.write("<license-lookup/>".getBytes(StandardCharsets.UTF_8));
+            zipStream.closeEntry();
+        } finally {
+            zipStream.close();
+        }
+
+        final RepositorySystem repositorySystem = createMock(RepositorySystem.class);
+        final Capture<ArtifactRequest> request = new Capture<ArtifactRequest>();
+        expect(
+                        repositorySystem.resolveArtifact(
+                                (RepositorySystemSession) isNull(), capture(request)))
+                .andAnswer(
+                        new IAnswer<ArtifactResult>() {
+                            public ArtifactResult answer() {
+                                final ArtifactResult result =
+                                        new ArtifactResult(request.getValue());
+                                result.setArtifact(
+                                        request.getValue().getArtifact().setFile(jar));
+                                return result;
+                            }
+                        })
+                .times(2);
+        replay(repositorySystem);
+
+        final ArtifactResourceResolver resolver =
+                new ArtifactResourceResolver(
+                        repositorySystem, null, Collections.<RemoteRepository>emptyList());
+
+        final URL url = resolver.resolve("org.foo:mappings:1.0:licenses!/META-INF/mappings.xml");
+        assertEquals("jar:" + jar.toURI() + "!/META-INF/mappings.xml", url.toExternalForm());
+        assertEquals(
+                "<license-lookup/>", IOUtils.toString(url.openStream(), StandardCharsets.UTF_8));
+
+        final Artifact artifact = request.getValue().getArtifact();
+        assertEquals("org.foo", artifact.getGroupId());
+        assertEquals("mappings", artifact.getArtifactId());
+        assertEquals("1.0", artifact.getVersion());
+        assertEquals("licenses", artifact.getClassifier());
+        assertEquals("jar", artifact.getExtension());
+
+        try {
+            resolver.resolve("org.foo:mappings:1.0:licenses!/missing.xml");
+            fail("Missing entry must fail");
+        } catch (MojoFailureException e) {
+            // expected
+        }
+
+        verify(repositorySystem);
+    }
+}
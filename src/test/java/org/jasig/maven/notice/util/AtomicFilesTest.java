@@ -0,0 +1,46 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AtomicFilesTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReplaceAtomically() throws Exception {
+        final File file = new File(this.temporaryFolder.getRoot(), "cache/entry.properties");
+        assertNull(AtomicFiles.readFile(file));
+
+        AtomicFiles.replaceAtomically(file, "longer content".getBytes(StandardCharsets.UTF_8));
+        AtomicFiles.replaceAtomically(file, "short".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("short", new String(AtomicFiles.readFile(file), StandardCharsets.UTF_8));
+        // No temporary files are left behind
+        assertArrayEquals(new String[] {"entry.properties"}, file.getParentFile().list());
+    }
+}
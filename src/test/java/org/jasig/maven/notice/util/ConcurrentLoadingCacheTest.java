@@ -0,0 +1,224 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class ConcurrentLoadingCacheTest {
+    @Test
+    public void testSingleFlightLoad() throws Exception {
+        final ConcurrentLoadingCache<String, String> cache =
+                new ConcurrentLoadingCache<String, String>(10);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Callable<String> loader =
+                new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        loads.incrementAndGet();
+                        loading.countDown();
+                        release.await();
+                        return "value";
+                    }
+                };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            results.add(executor.submit(this.get(cache, "a", "1", loader)));
+            loading.await();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(this.get(cache, "a", "1", loader)));
+            }
+
+            // A different key isn't blocked by the in-flight load
+            assertEquals("other", cache.get("b", "1", this.constant("other")));
+
+            release.countDown();
+            for (final Future<String> result : results) {
+                assertEquals("value", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.getStatistics().getMissCount());
+        assertEquals(3, cache.getStatistics().getHitCount());
+    }
+
+    @Test
+    public void testFingerprintAndFailures() throws Exception {
+        final ConcurrentLoadingCache<String, String> cache =
+                new ConcurrentLoadingCache<String, String>(10);
+
+        final String first = cache.get("a", "1", this.constant(new String("first")));
+        assertSame(first, cache.get("a", "1", this.constant("unused")));
+        assertEquals("second", cache.get("a", "2", this.constant("second")));
+
+        try {
+            cache.get(
+                    "b",
+                    null,
+                    new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            throw new IOException("failed");
+                        }
+                    });
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertEquals(IOException.class, e.getCause().getClass());
+        }
+
+        // Failures aren't cached
+        assertEquals("loaded", cache.get("b", null, this.constant("loaded")));
+        assertEquals(1, cache.getStatistics().getLoadFailureCount());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        final ConcurrentLoadingCache<String, String> cache =
+                new ConcurrentLoadingCache<String, String>(2);
+
+        cache.get("a", null, this.constant("a"));
+        cache.get("b", null, this.constant("b"));
+        cache.get("a", null, this.constant("unused"));
+        cache.get("c", null, this.constant("c"));
+
+        assertEquals(2, cache.size());
+        assertEquals("a", cache.get("a", null, this.constant("reloaded")));
+        assertEquals("b2", cache.get("b", null, this.constant("b2")));
+    }
+
+    @Test
+    public void testEvictsByWeight() throws Exception {
+        final ConcurrentLoadingCache<String, String> cache =
+                new ConcurrentLoadingCache<String, String>(100, 10, this.lengthWeigher(), true);
+
+        cache.get("a", null, this.constant("aaaa"));
+        cache.get("b", null, this.constant("bbbb"));
+        assertEquals(8, cache.getWeight());
+
+        // Loading c exceeds the max weight, the least recently used entry is evicted
+        cache.get("a", null, this.constant("unused"));
+        cache.get("c", null, this.constant("cccc"));
+        assertEquals(2, cache.size());
+        assertEquals(8, cache.getWeight());
+        assertEquals("aaaa", cache.get("a", null, this.constant("reloaded")));
+        assertEquals("b2", cache.get("b", null, this.constant("b2")));
+
+        // A value heavier than the max weight is returned but not kept
+        assertEquals("dddddddddddd", cache.get("d", null, this.constant("dddddddddddd")));
+        assertEquals("d2", cache.get("d", null, this.constant("d2")));
+    }
+
+    @Test
+    public void testReplacedWeightIsSubtracted() throws Exception {
+        final ConcurrentLoadingCache<String, String> cache =
+                new ConcurrentLoadingCache<String, String>(100, 10, this.lengthWeigher(), false);
+
+        cache.get("a", "1", this.constant("aaaa"));
+        cache.get("a", "2", this.constant("aaaaaa"));
+        assertEquals(6, cache.getWeight());
+
+        cache.put("a", "3", "aa");
+        assertEquals(2, cache.getWeight());
+
+        cache.clear();
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    public void testEvictsToLowWaterMark() throws Exception {
+        final ConcurrentLoadingCache<String, String> cache =
+                new ConcurrentLoadingCache<String, String>(16);
+
+        for (int i = 0; i < 16; i++) {
+            cache.get("key" + i, null, this.constant("value" + i));
+        }
+        assertEquals(16, cache.size());
+
+        // Exceeding the capacity evicts an eighth of it, leaving room for the next loads
+        cache.get("key16", null, this.constant("value16"));
+        assertEquals(14, cache.size());
+        assertEquals("value16", cache.get("key16", null, this.constant("reloaded")));
+        assertEquals("reloaded", cache.get("key0", null, this.constant("reloaded")));
+    }
+
+    @Test
+    public void testPut() throws Exception {
+        final ConcurrentLoadingCache<String, String> cache =
+                new ConcurrentLoadingCache<String, String>(2);
+
+        assertNull(cache.get("a", "1", this.constant(null)));
+        cache.put("a", "1", "put");
+        assertEquals("put", cache.get("a", "1", this.constant("unused")));
+        assertEquals("loaded", cache.get("a", "2", this.constant("loaded")));
+    }
+
+    private Callable<String> get(
+            final ConcurrentLoadingCache<String, String> cache,
+            final String key,
+            final String fingerprint,
+            final Callable<String> loader) {
+        return new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return cache.get(key, fingerprint, loader);
+            }
+        };
+    }
+
+    private ConcurrentLoadingCache.Weigher<String> lengthWeigher() {
+        return new ConcurrentLoadingCache.Weigher<String>() {
+            @Override
+            public long weigh(String value) {
+                return value.length();
+            }
+        };
+    }
+
+    private Callable<String> constant(final String value) {
+        return new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return value;
+            }
+        };
+    }
+}
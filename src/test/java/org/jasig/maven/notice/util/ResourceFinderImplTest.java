@@ -0,0 +1,100 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResourceFinderImplTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testClasspathOnlyResolvedOnMiss() throws Exception {
+        final File basedir = this.temporaryFolder.newFolder("project");
+        FileUtils.writeStringToFile(new File(basedir, "NOTICE.template"), "template", "UTF-8");
+        final File classesDir = this.temporaryFolder.newFolder("classes");
+        FileUtils.writeStringToFile(new File(classesDir, "mapping.xml"), "mapping", "UTF-8");
+
+        final AtomicInteger classpathCalls = new AtomicInteger();
+        final ResourceFinder finder =
+                new ResourceFinderImpl(
+                        createProject(basedir), new ConcurrentHashMap<String, URL>());
+        finder.setCompileClassPath(
+                new Callable<List<String>>() {
+                    public List<String> call() {
+                        classpathCalls.incrementAndGet();
+                        return Collections.singletonList(classesDir.getAbsolutePath());
+                    }
+                });
+        try {
+            assertEquals(
+                    new File(basedir, "NOTICE.template").toURI().toURL(),
+                    finder.findResource("NOTICE.template"));
+            assertEquals(0, classpathCalls.get());
+
+            assertNotNull(finder.findResource("/mapping.xml"));
+            assertNotNull(finder.findResource("mapping.xml"));
+            assertEquals(1, classpathCalls.get());
+        } finally {
+            finder.close();
+        }
+    }
+
+    @Test
+    public void testResolvedResourcesShared() throws Exception {
+        final File basedir = this.temporaryFolder.newFolder("project");
+        final File template = new File(basedir, "NOTICE.template");
+        FileUtils.writeStringToFile(template, "template", "UTF-8");
+
+        final ConcurrentMap<String, URL> resolvedResources = new ConcurrentHashMap<String, URL>();
+        final ResourceFinder first =
+                new ResourceFinderImpl(createProject(basedir), resolvedResources);
+        final URL url = first.findResource("NOTICE.template");
+        first.close();
+
+        // A second finder for the same basedir reuses the URL without searching again
+        template.delete();
+        final ResourceFinder second =
+                new ResourceFinderImpl(createProject(basedir), resolvedResources);
+        assertSame(url, second.findResource("NOTICE.template"));
+        second.close();
+    }
+
+    private static MavenProject createProject(File basedir) {
+        final MavenProject project = new MavenProject(new Model());
+        project.setFile(new File(basedir, "pom.xml"));
+        return project;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import difflib.Delta;
+import difflib.DiffUtils;
+import difflib.Patch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+
+public class SortedMergeDiffTest {
+
+    @Test
+    public void testMatchesMyersDiff() {
+        final Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            final List<String> original = createSortedLines(random);
+            final List<String> revised = createSortedLines(random);
+
+            assertEquals(
+                    toString(DiffUtils.diff(original, revised)),
+                    toString(SortedMergeDiff.diff(original, revised)));
+        }
+    }
+
+    @Test
+    public void testUnmergeableLists() {
+        assertNull(SortedMergeDiff.diff(Arrays.asList("a", "b"), Arrays.asList("b", "a")));
+        assertNull(SortedMergeDiff.diff(Arrays.asList("a", "a"), Arrays.asList("a")));
+        assertNull(SortedMergeDiff.diff(Arrays.asList("a"), Arrays.asList("b", "b")));
+    }
+
+    private static List<String> createSortedLines(Random random) {
+        final TreeSet<String> lines = new TreeSet<String>();
+        final int count = random.nextInt(30);
+        for (int i = 0; i < count; i++) {
+            lines.add("  Library " + random.nextInt(40) + " under Apache 2.0");
+        }
+        return new ArrayList<String>(lines);
+    }
+
+    private static String toString(Patch<String> patch) {
+        final StringBuilder builder = new StringBuilder();
+        for (final Delta<String> delta : patch.getDeltas()) {
+            builder.append(delta.getClass().getSimpleName())
+                    .append(delta.getOriginal())
+                    .append(delta.getRevised())
+                    .append('\n');
+        }
+        return builder.toString();
+    }
+}
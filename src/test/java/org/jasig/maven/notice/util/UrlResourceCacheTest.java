@@ -0,0 +1,185 @@
+/**
+ * Licensed to Apereo under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work
+ * for additional information regarding copyright ownership.
+ * Apereo licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License.  You may obtain a
+ * copy of the License at the following location:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jasig.maven.notice.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class UrlResourceCacheTest {
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<String> requests = new CopyOnWriteArrayList<String>();
+    private volatile String content = "first";
+    private volatile String etag = "\"1\"";
+    private HttpServer server;
+    private URL url;
+
+    @Before
+    public void startServer() throws Exception {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext(
+                "/mapping.xml",
+                new HttpHandler() {
+                    public void handle(HttpExchange exchange) throws IOException {
+                        final String ifNoneMatch =
+                                exchange.getRequestHeaders().getFirst("If-None-Match");
+                        requests.add(ifNoneMatch != null ? ifNoneMatch : "");
+
+                        exchange.getResponseHeaders().set("ETag", etag);
+                        if (etag.equals(ifNoneMatch)) {
+                            exchange.sendResponseHeaders(304, -1);
+                        } else {
+                            final byte[] body = content.getBytes(StandardCharsets.UTF_8);
+                            exchange.sendResponseHeaders(200, body.length);
+                            final OutputStream responseBody = exchange.getResponseBody();
+                            responseBody.write(body);
+                            responseBody.close();
+                        }
+                        exchange.close();
+                    }
+                });
+        this.server.start();
+        this.url =
+                new URL("http://localhost:" + this.server.getAddress().getPort() + "/mapping.xml");
+    }
+
+    @After
+    public void stopServer() {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testFetchedOncePerBuild() throws Exception {
+        final File cacheDirectory = this.temporaryFolder.newFolder("urls");
+        final ConcurrentHashMap<String, Future<File>> build =
+                new ConcurrentHashMap<String, Future<File>>();
+
+        final UrlResourceCache first = this.createCache(cacheDirectory, 0, false, build);
+        assertEquals("first", read(first.get(this.url)));
+        assertEquals("first", read(first.get(this.url)));
+        assertEquals("first", read(this.createCache(cacheDirectory, 0, false, build).get(url)));
+        assertEquals(Collections.singletonList(""), this.requests);
+    }
+
+    @Test
+    public void testRevalidate() throws Exception {
+        final File cacheDirectory = this.temporaryFolder.newFolder("urls");
+        assertEquals("first", read(this.createCache(cacheDirectory, 0, false).get(this.url)));
+
+        // The next build revalidates the cached copy
+        assertEquals("first", read(this.createCache(cacheDirectory, 0, false).get(this.url)));
+
+        // A changed resource is fetched again
+        this.content = "second";
+        this.etag = "\"2\"";
+        assertEquals("second", read(this.createCache(cacheDirectory, 0, false).get(this.url)));
+
+        // Cached copies younger than the max age aren't revalidated
+        this.content = "third";
+        this.etag = "\"3\"";
+        assertEquals(
+                "second", read(this.createCache(cacheDirectory, 60000, false).get(this.url)));
+
+        assertEquals(this.requests.toString(), 3, this.requests.size());
+        assertEquals("", this.requests.get(0));
+        assertEquals("\"1\"", this.requests.get(1));
+        assertEquals("\"1\"", this.requests.get(2));
+    }
+
+    @Test
+    public void testOffline() throws Exception {
+        final File cacheDirectory = this.temporaryFolder.newFolder("urls");
+        try {
+            this.createCache(cacheDirectory, 0, true).get(this.url);
+            fail("Uncached URL can't be read offline");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(0, this.requests.size());
+
+        assertEquals("first", read(this.createCache(cacheDirectory, 0, false).get(this.url)));
+        this.content = "second";
+        this.etag = "\"2\"";
+        assertEquals("first", read(this.createCache(cacheDirectory, 0, true).get(this.url)));
+        assertEquals(1, this.requests.size());
+
+        // An unreachable server falls back to the cached copy
+        this.server.stop(0);
+        assertEquals("first", read(this.createCache(cacheDirectory, 0, false).get(this.url)));
+    }
+
+    @Test
+    public void testContentDoesNotMatchMetadata() throws Exception {
+        final File cacheDirectory = this.temporaryFolder.newFolder("urls");
+        final File contentFile = this.createCache(cacheDirectory, 0, false).get(this.url);
+        assertEquals("first", read(contentFile));
+
+        // Content from another fetch paired with this fetch's validators isn't revalidated
+        FileUtils.writeStringToFile(contentFile, "other", "UTF-8");
+        try {
+            this.createCache(cacheDirectory, 0, true).get(this.url);
+            fail("Mismatched content can't be read offline");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals("first", read(this.createCache(cacheDirectory, 0, false).get(this.url)));
+
+        assertEquals(Arrays.asList("", ""), this.requests);
+    }
+
+    private UrlResourceCache createCache(File cacheDirectory, long maxAge, boolean offline) {
+        return this.createCache(
+                cacheDirectory, maxAge, offline, new ConcurrentHashMap<String, Future<File>>());
+    }
+
+    private UrlResourceCache createCache(
+            File cacheDirectory,
+            long maxAge,
+            boolean offline,
+            ConcurrentHashMap<String, Future<File>> build) {
+        return new UrlResourceCache(new SystemStreamLog(), cacheDirectory, maxAge, offline, build);
+    }
+
+    private static String read(File file) throws IOException {
+        return FileUtils.readFileToString(file, "UTF-8");
+    }
+}